@@ -1,11 +1,15 @@
 import solver.AStar;
+import solver.BatchSolver;
 import solver.Board;
 import solver.Puzzle;
+import solver.SolveStats;
 import heuristics.*;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
 
 public class Main {
     public static void main(String[] args) {
@@ -14,8 +18,12 @@ public class Main {
         Heuristic heuristic1 = new BlockingHeuristic();
         Heuristic heuristic2 = new MovementPotentialHeuristic();
         Heuristic heuristic3 = new ChainBlockingHeuristic();
+        Heuristic heuristic4 = new PatternDatabaseHeuristic();
+        Heuristic heuristic5 = new CompositeHeuristic(heuristic1, heuristic2, heuristic3);
         solveOnePuzzle(heuristic3, puzzle,0, false, true);
 //      solveAllPuzzles(heuristic1, puzzle, false, true);
+//      solveAllPuzzlesParallel(BlockingHeuristic::new, puzzle,
+//              BatchSolver.forkJoinPool(Runtime.getRuntime().availableProcessors()), false, true);
 
     }
 
@@ -56,6 +64,45 @@ public class Main {
 
     }
 
+    private static void solveAllPuzzlesParallel(Supplier<Heuristic> heuristic, Puzzle puzzle, ExecutorService executor,
+                                                boolean printBoards, boolean printStats) {
+        List<Board> boards = puzzle.getAllPuzzleBoards();
+        List<SolveStats> results;
+        long startTime = System.currentTimeMillis();
+        try {
+            results = new BatchSolver(executor, heuristic).solveAll(boards);
+        } finally {
+            executor.shutdown();
+        }
+        long wallClockTime = System.currentTimeMillis() - startTime;
+
+        long totalNumOfCars = 0;
+        long totalNodesExpanded = 0;
+        long totalDepth = 0;
+        long totalTimeTaken = 0;
+        long totalMemoryUsage = 0;
+
+        int puzzleNum = 1;
+        for (SolveStats result : results) {
+            System.out.println("Puzzle " + puzzleNum + ":");
+            puzzleNum++;
+
+            if(printStats) printStats(result.getNumOfCars(), result.getNodesExpanded(), result.getDepth(),
+                    result.getTimeTaken(), result.getMemoryUsed());
+
+            if(printBoards) printSolution(result.getSolutionPath());
+
+            totalNumOfCars += result.getNumOfCars();
+            totalNodesExpanded += result.getNodesExpanded();
+            totalDepth += result.getDepth();
+            totalTimeTaken += result.getTimeTaken();
+            totalMemoryUsage += result.getMemoryUsed();
+        }
+
+        printAverageStats(results.size(), totalNumOfCars, totalNodesExpanded, totalDepth, totalTimeTaken, totalMemoryUsage);
+        System.out.println("Wall-clock Time: " + wallClockTime + "ms");
+    }
+
     private static void solve(Heuristic heuristic, List<Board> boards, boolean printBoards, boolean printStats) {
 
         long totalNumOfCars = 0;
@@ -95,7 +142,11 @@ public class Main {
 
         }
 
-        int numPuzzles = boards.size();
+        printAverageStats(boards.size(), totalNumOfCars, totalNodesExpanded, totalDepth, totalTimeTaken, totalMemoryUsage);
+    }
+
+    private static void printAverageStats(int numPuzzles, long totalNumOfCars, long totalNodesExpanded, long totalDepth,
+                                          long totalTimeTaken, long totalMemoryUsage) {
         if (numPuzzles > 0) {
             long avgNumOfCars = totalNumOfCars / numPuzzles;
             long avgNodesExpanded = totalNodesExpanded / numPuzzles;
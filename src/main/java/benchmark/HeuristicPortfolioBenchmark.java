@@ -0,0 +1,51 @@
+package benchmark;
+
+import heuristics.*;
+import solver.*;
+
+import java.util.*;
+
+public class HeuristicPortfolioBenchmark {
+
+    public static void main(String[] args) {
+        List<Board> boards = new Puzzle("puzzles.txt").getAllPuzzleBoards();
+
+        Map<String, Heuristic> heuristics = new LinkedHashMap<>();
+        heuristics.put("Blocking", new BlockingHeuristic());
+        heuristics.put("MovementPotential", new MovementPotentialHeuristic());
+        heuristics.put("ChainBlocking", new ChainBlockingHeuristic());
+        CompositeHeuristic composite = new CompositeHeuristic(
+                new BlockingHeuristic(), new MovementPotentialHeuristic(), new ChainBlockingHeuristic());
+        heuristics.put("Max (composite)", composite);
+
+        System.out.printf("%-20s %-6s %12s %12s %10s%n", "Heuristic", "Solver", "Total depth", "Nodes", "Time");
+        for (Map.Entry<String, Heuristic> heuristic : heuristics.entrySet()) {
+            long depth = 0;
+            long nodes = 0;
+            long startTime = System.nanoTime();
+            for (Board board : boards) {
+                AStar solver = new AStar();
+                List<Board> solution = solver.solve(board, heuristic.getValue());
+                depth += solution == null ? 0 : solution.size() - 1;
+                nodes += solver.getNodesExpanded();
+            }
+            System.out.printf("%-20s %-6s %12d %12d %8.1fms%n", heuristic.getKey(), "A*", depth, nodes,
+                    (System.nanoTime() - startTime) / 1e6);
+        }
+
+        long depth = 0;
+        long nodes = 0;
+        long startTime = System.nanoTime();
+        for (Board board : boards) {
+            IDAStar solver = new IDAStar();
+            List<Board> solution = solver.solve(board, composite);
+            depth += solution == null ? 0 : solution.size() - 1;
+            nodes += solver.getNodesExpanded();
+        }
+        System.out.printf("%-20s %-6s %12d %12d %8.1fms%n", "Max (composite)", "IDA*", depth, nodes,
+                (System.nanoTime() - startTime) / 1e6);
+
+        System.out.println();
+        System.out.println(composite);
+    }
+}
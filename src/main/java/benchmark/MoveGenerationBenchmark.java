@@ -0,0 +1,130 @@
+package benchmark;
+
+import solver.Board;
+import solver.Puzzle;
+
+import java.util.*;
+
+public class MoveGenerationBenchmark {
+    private static final int WALKS_PER_PUZZLE = 50;
+    private static final int WALK_LENGTH = 40;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 20;
+    private static final long SEED = 42L;
+
+    // Keeps the JIT from discarding successors that are never looked at.
+    private static long sink;
+
+    public static void main(String[] args) {
+        List<Board> states = sampleStates(new Puzzle("puzzles.txt").getAllPuzzleBoards());
+        System.out.println("Sampled states: " + states.size());
+
+        measure("expand()", states, MoveGenerationBenchmark::expandBoards);
+        measure("generateMoves + applyMove", states, MoveGenerationBenchmark::applyMoves);
+        measure("generateMoves + childStateKey", states, MoveGenerationBenchmark::childKeys);
+        measure("generateMoves + make/unmake", states, MoveGenerationBenchmark::makeUnmake);
+    }
+
+    private interface Generator {
+        long run(List<Board> states);
+    }
+
+    private static void measure(String name, List<Board> states, Generator generator) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            generator.run(states);
+        }
+        long successors = 0;
+        long startTime = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            successors += generator.run(states);
+        }
+        double seconds = (System.nanoTime() - startTime) / 1e9;
+        System.out.printf("  %-32s %12.0f successors/s  (%d successors)%n",
+                name, successors / seconds, successors / MEASURED_ROUNDS);
+    }
+
+    // Random walks from every puzzle, so the sample covers more than the start states.
+    private static List<Board> sampleStates(List<Board> puzzles) {
+        Random random = new Random(SEED);
+        List<Board> states = new ArrayList<>();
+        for (Board puzzle : puzzles) {
+            int[] moves = new int[puzzle.getLayout().getMaxMoves()];
+            for (int walk = 0; walk < WALKS_PER_PUZZLE; walk++) {
+                Board board = puzzle;
+                for (int step = 0; step < WALK_LENGTH; step++) {
+                    states.add(board);
+                    int count = board.generateMoves(moves);
+                    if (count == 0) {
+                        break;
+                    }
+                    board = board.applyMove(moves[random.nextInt(count)]);
+                }
+            }
+        }
+        return states;
+    }
+
+    private static long expandBoards(List<Board> states) {
+        long successors = 0;
+        for (Board board : states) {
+            successors += board.expand().size();
+        }
+        return successors;
+    }
+
+    private static long applyMoves(List<Board> states) {
+        long successors = 0;
+        long checksum = 0;
+        int[] moves = new int[64];
+        for (Board board : states) {
+            moves = ensureCapacity(moves, board);
+            int count = board.generateMoves(moves);
+            for (int i = 0; i < count; i++) {
+                checksum += board.applyMove(moves[i]).getStateKey();
+            }
+            successors += count;
+        }
+        sink += checksum;
+        return successors;
+    }
+
+    private static long childKeys(List<Board> states) {
+        long successors = 0;
+        long checksum = 0;
+        int[] moves = new int[64];
+        for (Board board : states) {
+            moves = ensureCapacity(moves, board);
+            int count = board.generateMoves(moves);
+            for (int i = 0; i < count; i++) {
+                checksum += board.childStateKey(moves[i]);
+            }
+            successors += count;
+        }
+        sink += checksum;
+        return successors;
+    }
+
+    private static long makeUnmake(List<Board> states) {
+        long successors = 0;
+        long checksum = 0;
+        int[] moves = new int[64];
+        for (Board state : states) {
+            Board board = state.clone();
+            moves = ensureCapacity(moves, board);
+            int count = board.generateMoves(moves);
+            for (int i = 0; i < count; i++) {
+                board.makeMove(moves[i]);
+                checksum += board.getZobristKey();
+                board.unmakeMove(moves[i]);
+            }
+            successors += count;
+        }
+        sink += checksum;
+        return successors;
+    }
+
+    private static int[] ensureCapacity(int[] moves, Board board) {
+        int needed = board.getLayout().getMaxMoves();
+        return moves.length >= needed ? moves : new int[needed];
+    }
+}
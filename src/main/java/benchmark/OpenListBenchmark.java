@@ -0,0 +1,63 @@
+package benchmark;
+
+import heuristics.BlockingHeuristic;
+import heuristics.Heuristic;
+import heuristics.MovementPotentialHeuristic;
+import heuristics.PatternDatabaseHeuristic;
+import solver.*;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+public class OpenListBenchmark {
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 5;
+
+    public static void main(String[] args) {
+        List<Board> boards = new Puzzle("puzzles.txt").getAllPuzzleBoards();
+
+        Map<String, Supplier<OpenList<Node>>> openLists = new LinkedHashMap<>();
+        openLists.put("Binary heap", () -> new IndexedPriorityQueue<>(Comparator.comparingInt(Node::getF)));
+        openLists.put("Buckets (LIFO)", () -> new BucketQueue(BucketQueue.TieBreak.LIFO));
+        openLists.put("Buckets (FIFO)", () -> new BucketQueue(BucketQueue.TieBreak.FIFO));
+
+        Map<String, Heuristic> heuristics = new LinkedHashMap<>();
+        heuristics.put("Blocking", new BlockingHeuristic());
+        heuristics.put("MovementPotential", new MovementPotentialHeuristic());
+        heuristics.put("PatternDatabase", new PatternDatabaseHeuristic());
+
+        for (Map.Entry<String, Heuristic> heuristic : heuristics.entrySet()) {
+            System.out.println("Heuristic: " + heuristic.getKey());
+            for (Map.Entry<String, Supplier<OpenList<Node>>> openList : openLists.entrySet()) {
+                for (int i = 0; i < WARMUP_ROUNDS; i++) {
+                    run(boards, openList.getValue(), heuristic.getValue());
+                }
+                long totalNodes = 0;
+                long totalDepth = 0;
+                long startTime = System.nanoTime();
+                for (int i = 0; i < MEASURED_ROUNDS; i++) {
+                    long[] result = run(boards, openList.getValue(), heuristic.getValue());
+                    totalNodes = result[0];
+                    totalDepth = result[1];
+                }
+                double avgMillis = (System.nanoTime() - startTime) / 1e6 / MEASURED_ROUNDS;
+
+                System.out.printf("  %-16s %10.1f ms/suite  nodes expanded: %8d  total depth: %d%n",
+                        openList.getKey(), avgMillis, totalNodes, totalDepth);
+            }
+            System.out.println("----------------------------------------");
+        }
+    }
+
+    private static long[] run(List<Board> boards, Supplier<OpenList<Node>> openList, Heuristic heuristic) {
+        long nodes = 0;
+        long depth = 0;
+        for (Board board : boards) {
+            AStar solver = new AStar(openList.get());
+            List<Board> solution = solver.solve(board, heuristic);
+            nodes += solver.getNodesExpanded();
+            depth += solution == null ? 0 : solution.size() - 1;
+        }
+        return new long[]{nodes, depth};
+    }
+}
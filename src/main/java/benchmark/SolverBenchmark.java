@@ -0,0 +1,50 @@
+package benchmark;
+
+import heuristics.BlockingHeuristic;
+import heuristics.Heuristic;
+import solver.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class SolverBenchmark {
+
+    public static void main(String[] args) {
+        List<Board> boards = new Puzzle("puzzles.txt").getAllPuzzleBoards();
+        Heuristic heuristic = new BlockingHeuristic();
+
+        System.out.printf("%-8s %-10s %8s %12s %10s %14s%n", "Puzzle", "Solver", "Depth", "Nodes", "Time", "Nodes/sec");
+        int puzzleNum = 1;
+        for (Board board : boards) {
+            AStar aStar = new AStar();
+            long startTime = System.nanoTime();
+            List<Board> solution = aStar.solve(board, heuristic);
+            print(puzzleNum, "A*", solution, aStar.getNodesExpanded(), System.nanoTime() - startTime);
+
+            IDAStar idaStar = new IDAStar();
+            startTime = System.nanoTime();
+            solution = idaStar.solve(board, heuristic);
+            print(puzzleNum, "IDA*", solution, idaStar.getNodesExpanded(), System.nanoTime() - startTime);
+
+            BidirectionalBFS bfs = new BidirectionalBFS();
+            startTime = System.nanoTime();
+            solution = bfs.solve(board);
+            print(puzzleNum, "BiBFS", solution, bfs.getNodesExpanded(), System.nanoTime() - startTime);
+
+            ParallelAStar hdaStar = new ParallelAStar();
+            startTime = System.nanoTime();
+            solution = hdaStar.solve(board, heuristic);
+            print(puzzleNum, "HDA*", solution, hdaStar.getNodesExpanded(), System.nanoTime() - startTime);
+            System.out.println("         nodes per worker: " + Arrays.toString(hdaStar.getNodesExpandedPerWorker()));
+
+            puzzleNum++;
+        }
+    }
+
+    static void print(int puzzleNum, String solver, List<Board> solution, long nodes, long nanos) {
+        int depth = solution == null ? -1 : solution.size() - 1;
+        double millis = nanos / 1e6;
+        double nodesPerSecond = nodes / (nanos / 1e9);
+        System.out.printf("%-8d %-10s %8d %12d %8.1fms %14.0f%n", puzzleNum, solver, depth, nodes, millis, nodesPerSecond);
+    }
+}
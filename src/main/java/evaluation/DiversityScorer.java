@@ -1,6 +1,7 @@
 package evaluation;
 
 import solver.Board;
+import solver.ComponentExplorer;
 import solver.Vehicle;
 
 import java.io.ByteArrayOutputStream;
@@ -194,8 +195,7 @@ public class DiversityScorer {
 
         for (List<Board> path : solutionPaths) {
             for (Board board : path) {
-                List<Board> moves = board.expand();
-                int moveCount = moves.size();
+                int moveCount = moveCount(board);
                 if (moveCount > 0) {
                     totalEntropy += Math.log(moveCount) / Math.log(2);
                 }
@@ -212,8 +212,7 @@ public class DiversityScorer {
 
         for (List<Board> path : solutionPaths) {
             for (Board board : path) {
-                int moves = board.expand().size();
-                totalBranches += moves;
+                totalBranches += moveCount(board);
                 totalBoards++;
             }
         }
@@ -221,6 +220,39 @@ public class DiversityScorer {
         return totalBoards == 0 ? 0 : totalBranches / totalBoards;
     }
 
+    private static int moveCount(Board board) {
+        return board.generateMoves(new int[board.getLayout().getMaxMoves()]);
+    }
+
+    // ==== Reachable Component ====
+
+    // Unlike the path measures above, these look at every state reachable
+    // from each board.
+    public static List<ComponentExplorer.Component> exploreComponents(List<Board> boards) {
+        List<ComponentExplorer.Component> components = new ArrayList<>();
+        for (Board b : boards) {
+            components.add(ComponentExplorer.explore(b));
+        }
+        return components;
+    }
+
+    public static double averageComponentBranchingFactor(List<ComponentExplorer.Component> components) {
+        return components.stream().mapToDouble(ComponentExplorer.Component::getAverageBranchingFactor).average().orElse(0);
+    }
+
+    public static double averageComponentSize(List<ComponentExplorer.Component> components) {
+        return components.stream().mapToInt(ComponentExplorer.Component::size).average().orElse(0);
+    }
+
+    public static double averageGoalStates(List<ComponentExplorer.Component> components) {
+        return components.stream().mapToInt(ComponentExplorer.Component::getGoalCount).average().orElse(0);
+    }
+
+    // How far the hardest state of each component is from a goal.
+    public static double averageMaxDistance(List<ComponentExplorer.Component> components) {
+        return components.stream().mapToInt(ComponentExplorer.Component::getMaxDistance).average().orElse(0);
+    }
+
     // ==== Final Report ====
 
     public static void printDiversityReport(
@@ -234,6 +266,7 @@ public class DiversityScorer {
             double percentSymmetric = percentageSymmetric(boards);
             double avgPathEntropy = averagePathEntropy(solutionPaths);
             double avgBranchingFactor = averageBranchingFactor(solutionPaths);
+            List<ComponentExplorer.Component> components = exploreComponents(boards);
 
             System.out.println("=== Advanced Diversity Report ===");
             System.out.printf("Average Grid Difference: %.4f%n", avgGridDiff);
@@ -242,6 +275,10 @@ public class DiversityScorer {
             System.out.printf("Percentage of Symmetric Puzzles: %.2f%%%n", percentSymmetric * 100);
             System.out.printf("Average Path Entropy (bits): %.4f%n", avgPathEntropy);
             System.out.printf("Average Branching Factor: %.4f%n", avgBranchingFactor);
+            System.out.printf("Average Component Size: %.1f%n", averageComponentSize(components));
+            System.out.printf("Average Component Branching Factor: %.4f%n", averageComponentBranchingFactor(components));
+            System.out.printf("Average Goal States: %.1f%n", averageGoalStates(components));
+            System.out.printf("Average Max Distance: %.2f%n", averageMaxDistance(components));
             System.out.println("==================================");
 
         } catch (IOException e) {
@@ -0,0 +1,253 @@
+package generator;
+
+import heuristics.BlockingHeuristic;
+import heuristics.CachingHeuristic;
+import heuristics.ChainBlockingHeuristic;
+import heuristics.Heuristic;
+import solver.AStar;
+import solver.Board;
+import solver.CanonicalKey;
+import solver.PuzzleIndex;
+import solver.SearchBudget;
+import solver.SearchResult;
+import solver.SolvabilityFilter;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+// Generates levels continuously and sorts them into difficulty buckets.
+// Worker threads each run a LevelBuilder (placement filtered on bit masks,
+// then the solvability filter and a search per candidate). The builder's
+// heuristic may overestimate, so each finished level is solved once more
+// with the admissible BlockingHeuristic under the same search budget; levels
+// that search cannot finish are dropped. Finished levels go through a
+// bounded queue to the calling thread, which takes them in batches, drops
+// duplicates and levels of fewer than MIN_DEPTH moves, and hands the rest
+// to a sink as soon as they are bucketed. Duplicates are found by canonical
+// key, optionally by component, in memory or in a PuzzleIndex that spans
+// runs.
+public class GenerationPipeline {
+    public static final int MIN_DEPTH = 5;
+    private static final int BATCH_SIZE = 16;
+
+    public enum Difficulty {
+        EASY(15),
+        MEDIUM(25),
+        HARD(35),
+        VERY_HARD(45),
+        EXTREME(Integer.MAX_VALUE);
+
+        private final int maxDepth;
+
+        Difficulty(int maxDepth) {
+            this.maxDepth = maxDepth;
+        }
+
+        public static Difficulty of(int depth) {
+            for (Difficulty difficulty : values()) {
+                if (depth <= difficulty.maxDepth) {
+                    return difficulty;
+                }
+            }
+            return EXTREME;
+        }
+    }
+
+    private final int threads;
+    private final int maxVehicles;
+    private final int minDepth;
+    private final CachingHeuristic heuristic = new CachingHeuristic(new ChainBlockingHeuristic());
+    private final SolvabilityFilter filter = new SolvabilityFilter();
+    private double searchWeight = 1.0;
+    private SearchBudget searchBudget = SearchBudget.ofNodes(200_000).withMillis(2_000);
+
+    private final Map<Difficulty, List<Board>> buckets = new EnumMap<>(Difficulty.class);
+    private final Set<CanonicalKey> seen = new HashSet<>();
+    private PuzzleIndex index;
+    private int componentLimit;
+    private final List<LevelBuilder> builders = new CopyOnWriteArrayList<>();
+    private final LongAdder unverified = new LongAdder();
+    private long produced;
+    private long duplicates;
+    private long tooShort;
+    private long elapsedNanos;
+
+    public GenerationPipeline(int threads, int maxVehicles, int minDepth) {
+        this.threads = threads;
+        this.maxVehicles = maxVehicles;
+        this.minDepth = minDepth;
+        for (Difficulty difficulty : Difficulty.values()) {
+            buckets.put(difficulty, new ArrayList<>());
+        }
+    }
+
+    // See Gen.configureSearch.
+    public void configureSearch(double initialWeight, SearchBudget budget) {
+        this.searchWeight = initialWeight;
+        this.searchBudget = budget;
+    }
+
+    // Levels already in the index count as duplicates, and accepted levels
+    // are added to it. Without an index only this pipeline's levels count.
+    public void setIndex(PuzzleIndex index) {
+        this.index = index;
+    }
+
+    // Treats levels from the same component of at most maxStates states as
+    // duplicates; see CanonicalKey.ofComponent. 0 compares boards only.
+    public void setComponentLimit(int maxStates) {
+        this.componentLimit = maxStates;
+    }
+
+    // Runs until count more levels have been accepted and returns all
+    // buckets. The sink is called on this thread for every accepted level.
+    public Map<Difficulty, List<Board>> generate(int count, BiConsumer<Difficulty, Board> sink) {
+        BlockingQueue<Level> queue = new ArrayBlockingQueue<>(threads * BATCH_SIZE);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            workers.add(executor.submit(() -> produce(queue)));
+        }
+
+        long startTime = System.nanoTime();
+        List<Level> batch = new ArrayList<>(BATCH_SIZE);
+        try {
+            for (int accepted = 0; accepted < count; ) {
+                Level first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    checkWorkers(workers);
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, BATCH_SIZE - 1);
+                for (Level level : batch) {
+                    if (accepted < count && accept(level, sink)) {
+                        accepted++;
+                    }
+                }
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Generation interrupted", e);
+        } finally {
+            executor.shutdownNow();
+            try {
+                executor.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            elapsedNanos += System.nanoTime() - startTime;
+        }
+        return buckets;
+    }
+
+    private void produce(BlockingQueue<Level> queue) {
+        LevelBuilder builder = new LevelBuilder(new Random(), heuristic, filter, searchWeight, searchBudget);
+        builders.add(builder);
+        AStar solver = new AStar();
+        Heuristic exact = new BlockingHeuristic();
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                Board board = builder.build(maxVehicles, minDepth);
+                if (board == null) {
+                    return;
+                }
+                SearchResult result = solver.search(board, exact, searchBudget);
+                if (!result.isSolved()) {
+                    unverified.increment();
+                    continue;
+                }
+                queue.put(new Level(board, result.getDepth()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void checkWorkers(List<Future<?>> workers) throws InterruptedException {
+        for (Future<?> worker : workers) {
+            if (worker.isDone()) {
+                try {
+                    worker.get();
+                } catch (ExecutionException e) {
+                    throw new RuntimeException("Level generation failed", e.getCause());
+                }
+            }
+        }
+    }
+
+    private boolean accept(Level level, BiConsumer<Difficulty, Board> sink) {
+        produced++;
+        if (level.depth < MIN_DEPTH) {
+            tooShort++;
+            return false;
+        }
+        CanonicalKey key = componentLimit > 0
+                ? CanonicalKey.ofComponent(level.board, componentLimit) : CanonicalKey.of(level.board);
+        if (index != null ? !index.add(key) : !seen.add(key)) {
+            duplicates++;
+            return false;
+        }
+        Difficulty difficulty = Difficulty.of(level.depth);
+        buckets.get(difficulty).add(level.board);
+        sink.accept(difficulty, level.board);
+        return true;
+    }
+
+    public Map<Difficulty, List<Board>> getBuckets() {
+        return buckets;
+    }
+
+    public long getAccepted() {
+        return produced - duplicates - tooShort;
+    }
+
+    public double getPuzzlesPerSecond() {
+        return elapsedNanos == 0 ? 0.0 : getAccepted() * 1e9 / elapsedNanos;
+    }
+
+    // Levels dropped because the exact search ran out of budget.
+    public long getUnverified() {
+        return unverified.sum();
+    }
+
+    public CachingHeuristic getHeuristic() {
+        return heuristic;
+    }
+
+    public SolvabilityFilter getFilter() {
+        return filter;
+    }
+
+    // Builder counters are only read once the workers have stopped.
+    @Override
+    public String toString() {
+        long candidates = 0;
+        long maskRejections = 0;
+        long filterRejections = 0;
+        long solves = 0;
+        for (LevelBuilder builder : builders) {
+            candidates += builder.getCandidates();
+            maskRejections += builder.getMaskRejections();
+            filterRejections += builder.getFilterRejections();
+            solves += builder.getSolves();
+        }
+        return String.format("%d puzzles in %.1fs (%.2f/s, %d threads), %d produced, %d duplicates, %d too short, "
+                        + "%d unverified; %d candidates, %d rejected by masks, %d by the filter, %d solves",
+                getAccepted(), elapsedNanos / 1e9, getPuzzlesPerSecond(), threads, produced, duplicates, tooShort,
+                unverified.sum(), candidates, maskRejections, filterRejections, solves);
+    }
+
+    private static class Level {
+        private final Board board;
+        private final int depth;
+
+        Level(Board board, int depth) {
+            this.board = board;
+            this.depth = depth;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package generator;
+
+import heuristics.Heuristic;
+import solver.AStar;
+import solver.AnytimeAStar;
+import solver.Board;
+import solver.SearchBudget;
+import solver.SolvabilityFilter;
+import solver.Vehicle;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+// Builds levels the way Gen always has: the red car, a vertical blocker in
+// front of it, then random vehicles that are kept as long as the puzzle does
+// not get shorter. Placements are checked on occupancy bit masks before a
+// candidate board is built; a row filled only by horizontal vehicles or a
+// column filled only by vertical ones is never allowed. Rejected attempts
+// start over in a loop. One instance per thread; the heuristic and filter
+// may be shared.
+class LevelBuilder {
+    static final int BOARD_SIZE = 6;
+    static final int RED_CAR_ID = 1;
+    static final int EXIT_ROW = 2;
+    private static final int MAX_CANDIDATES = 2000;
+    private static final long ROW = (1L << BOARD_SIZE) - 1;
+    private static final long COLUMN = 0x41041041L;
+
+    private final Random random;
+    private final Heuristic heuristic;
+    private final SolvabilityFilter filter;
+    private final double searchWeight;
+    private final SearchBudget searchBudget;
+    private final AStar solver = new AStar();
+
+    private long candidates;
+    private long maskRejections;
+    private long filterRejections;
+    private long solves;
+
+    LevelBuilder(Random random, Heuristic heuristic, SolvabilityFilter filter, double searchWeight, SearchBudget searchBudget) {
+        this.random = random;
+        this.heuristic = heuristic;
+        this.filter = filter;
+        this.searchWeight = searchWeight;
+        this.searchBudget = searchBudget;
+    }
+
+    // Returns null only when the thread is interrupted.
+    Board build(int maxVehicles, int minDepth) {
+        while (!Thread.currentThread().isInterrupted()) {
+            Board level = attempt(maxVehicles, minDepth);
+            if (level != null) {
+                return level;
+            }
+        }
+        return null;
+    }
+
+    private Board attempt(int maxVehicles, int minDepth) {
+        Map<Integer, Vehicle> vehicles = new HashMap<>();
+        long occupancy = 0L;
+        long horizontalCells = 0L;
+        int nextId = RED_CAR_ID + 1;
+
+        // Place red car
+        int redX = random.nextInt(BOARD_SIZE - 2);
+        vehicles.put(RED_CAR_ID, new Vehicle(RED_CAR_ID, redX, EXIT_ROW, 2, true));
+        occupancy |= cells(redX, EXIT_ROW, 2, true);
+        horizontalCells |= occupancy;
+
+        // Place vertical blocker intersecting row 2; columns are tried in random order
+        int columns = BOARD_SIZE - redX - 2;
+        int first = random.nextInt(columns);
+        boolean placedBlocker = false;
+        for (int i = 0; i < columns && !placedBlocker; i++) {
+            int x = redX + 2 + (first + i) % columns;
+            for (int y = EXIT_ROW - 1; y <= EXIT_ROW; y++) {
+                long blocker = cells(x, y, 2, false);
+                if ((occupancy & blocker) == 0) {
+                    vehicles.put(nextId, new Vehicle(nextId++, x, y, 2, false));
+                    occupancy |= blocker;
+                    placedBlocker = true;
+                    break;
+                }
+            }
+        }
+        if (!placedBlocker) return null;
+
+        Board board = new Board(new HashMap<>(vehicles), BOARD_SIZE);
+        if (filter.classify(board) == SolvabilityFilter.Verdict.UNSOLVABLE) return null;
+        List<Board> solution = solve(board);
+        if (solution == null) return null;
+        int currentDepth = solution.size() - 1;
+
+        // Now try adding vehicles greedily
+        for (int attempts = 0; vehicles.size() < maxVehicles + 1 && attempts < MAX_CANDIDATES; attempts++) {
+            boolean horizontal = random.nextBoolean();
+            int length = random.nextBoolean() ? 2 : 3;
+            int startX = random.nextInt(BOARD_SIZE - (horizontal ? length - 1 : 0));
+            int startY = random.nextInt(BOARD_SIZE - (!horizontal ? length - 1 : 0));
+            if (horizontal && startY == EXIT_ROW) continue;
+
+            candidates++;
+            long mask = cells(startX, startY, length, horizontal);
+            if (!isValidPlacement(mask, horizontal, occupancy, horizontalCells)) {
+                maskRejections++;
+                continue;
+            }
+
+            Vehicle candidate = new Vehicle(nextId, startX, startY, length, horizontal);
+            Map<Integer, Vehicle> tempVehicles = new HashMap<>(vehicles);
+            tempVehicles.put(nextId, candidate);
+            Board tempBoard = new Board(tempVehicles, BOARD_SIZE);
+            SolvabilityFilter.Verdict verdict = filter.classify(tempBoard);
+            if (verdict.isDecided() && verdict.getDepth() < currentDepth) {
+                filterRejections++;
+                continue;
+            }
+            List<Board> newSolution = solve(tempBoard);
+
+            if (newSolution != null && newSolution.size() - 1 >= currentDepth) {
+                // Accept car
+                vehicles.put(nextId++, candidate);
+                occupancy |= mask;
+                if (horizontal) horizontalCells |= mask;
+                currentDepth = newSolution.size() - 1;
+            }
+        }
+
+        // Accept only puzzles above desired difficulty
+        return currentDepth >= minDepth ? new Board(vehicles, BOARD_SIZE) : null;
+    }
+
+    private static long cells(int x, int y, int length, boolean horizontal) {
+        long mask = 0L;
+        for (int i = 0; i < length; i++) {
+            mask |= 1L << ((horizontal ? y : y + i) * BOARD_SIZE + (horizontal ? x + i : x));
+        }
+        return mask;
+    }
+
+    private static boolean isValidPlacement(long mask, boolean horizontal, long occupancy, long horizontalCells) {
+        if ((occupancy & mask) != 0) return false;
+        long occupied = occupancy | mask;
+        long horizontals = horizontal ? horizontalCells | mask : horizontalCells;
+        for (int lane = 0; lane < BOARD_SIZE; lane++) {
+            long row = ROW << (lane * BOARD_SIZE);
+            if ((row & mask) != 0 && (occupied & row) == row && (horizontals & row) == row) return false;
+            long column = COLUMN << lane;
+            if ((column & mask) != 0 && (occupied & column) == column && (horizontals & column) == 0) return false;
+        }
+        return true;
+    }
+
+    private List<Board> solve(Board board) {
+        solves++;
+        if (searchWeight <= 1.0) {
+            return solver.solve(board, heuristic, searchBudget);
+        }
+        return new AnytimeAStar(searchWeight, AnytimeAStar.DEFAULT_WEIGHT_STEP, searchBudget).solve(board, heuristic);
+    }
+
+    long getCandidates() {
+        return candidates;
+    }
+
+    long getMaskRejections() {
+        return maskRejections;
+    }
+
+    long getFilterRejections() {
+        return filterRejections;
+    }
+
+    long getSolves() {
+        return solves;
+    }
+}
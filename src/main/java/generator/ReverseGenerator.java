@@ -0,0 +1,147 @@
+package generator;
+
+import solver.Board;
+import solver.BoardLayout;
+import solver.DistanceDatabase;
+import solver.GoalStates;
+import solver.LongHashSet;
+import solver.LongList;
+import solver.Puzzle;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+// Generates puzzles of known optimal depth without solving any of them. A
+// breadth-first search backwards from every goal state of a layout reaches
+// each solvable state at its exact distance from the goal, since moves are
+// reversible, so the deepest layers hold the hardest puzzles the layout
+// allows. One traversal yields all of them.
+public class ReverseGenerator {
+    public static final int DEFAULT_GOAL_LIMIT = DistanceDatabase.DEFAULT_GOAL_LIMIT;
+
+    private ReverseGenerator() {
+    }
+
+    // Takes the layouts of a puzzle file and writes the hardest puzzles of
+    // each to a file in the same format.
+    public static void main(String[] args) throws IOException {
+        Path output = Paths.get(args.length > 0 ? args[0] : "generated-puzzles.txt");
+        int minDepth = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        int perLayout = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        String puzzleFile = args.length > 3 ? args[3] : "puzzles.txt";
+
+        Set<BoardLayout> layouts = new LinkedHashSet<>();
+        for (Board board : new Puzzle(puzzleFile).getAllPuzzleBoards()) {
+            layouts.add(board.getLayout());
+        }
+        List<Board> puzzles = new ArrayList<>();
+        for (BoardLayout layout : layouts) {
+            long startTime = System.currentTimeMillis();
+            Result result = generate(layout, minDepth, perLayout);
+            System.out.println(result + " (" + (System.currentTimeMillis() - startTime) + "ms)");
+            puzzles.addAll(result.getPuzzles());
+        }
+        Puzzle.write(puzzles, 1, output);
+        System.out.println("Wrote " + puzzles.size() + " puzzles to " + output);
+    }
+
+    // Up to limit puzzles of at least minDepth moves, deepest first.
+    public static Result generate(BoardLayout layout, int minDepth, int limit) {
+        long[] goals = GoalStates.enumerate(layout, DEFAULT_GOAL_LIMIT);
+        if (goals == null) {
+            throw new IllegalArgumentException("Layout has more than " + DEFAULT_GOAL_LIMIT + " goal states");
+        }
+
+        LongHashSet visited = new LongHashSet();
+        LongList frontier = new LongList(goals.length);
+        for (long goal : goals) {
+            if (visited.add(goal)) {
+                frontier.add(goal);
+            }
+        }
+
+        // Layers below minDepth are only counted.
+        List<LongList> layers = new ArrayList<>();
+        List<Integer> layerSizes = new ArrayList<>();
+        int[] moves = new int[layout.getMaxMoves()];
+        for (int depth = 0; !frontier.isEmpty(); depth++) {
+            layerSizes.add(frontier.size());
+            layers.add(depth >= minDepth ? frontier : null);
+            LongList next = new LongList(frontier.size());
+            for (int i = 0; i < frontier.size(); i++) {
+                Board board = layout.toBoard(frontier.get(i));
+                int count = board.generateMoves(moves);
+                for (int m = 0; m < count; m++) {
+                    long child = board.childStateKey(moves[m]);
+                    if (visited.add(child)) {
+                        next.add(child);
+                    }
+                }
+            }
+            frontier = next;
+        }
+
+        List<Board> puzzles = new ArrayList<>();
+        List<Integer> depths = new ArrayList<>();
+        for (int depth = layers.size() - 1; depth >= minDepth && puzzles.size() < limit; depth--) {
+            LongList layer = layers.get(depth);
+            for (int i = 0; i < layer.size() && puzzles.size() < limit; i++) {
+                puzzles.add(layout.toBoard(layer.get(i)));
+                depths.add(depth);
+            }
+        }
+        return new Result(layout, visited.size(), layerSizes, puzzles, depths);
+    }
+
+    public static class Result {
+        private final BoardLayout layout;
+        private final int states;
+        private final List<Integer> layerSizes;
+        private final List<Board> puzzles;
+        private final List<Integer> depths;
+
+        Result(BoardLayout layout, int states, List<Integer> layerSizes, List<Board> puzzles, List<Integer> depths) {
+            this.layout = layout;
+            this.states = states;
+            this.layerSizes = layerSizes;
+            this.puzzles = puzzles;
+            this.depths = depths;
+        }
+
+        public BoardLayout getLayout() {
+            return layout;
+        }
+
+        // Solvable states of the layout.
+        public int getStates() {
+            return states;
+        }
+
+        // Optimal depth of the hardest puzzles of the layout.
+        public int getMaxDepth() {
+            return layerSizes.size() - 1;
+        }
+
+        // Number of states exactly depth moves from a goal.
+        public int getLayerSize(int depth) {
+            return depth >= 0 && depth < layerSizes.size() ? layerSizes.get(depth) : 0;
+        }
+
+        public List<Board> getPuzzles() {
+            return puzzles;
+        }
+
+        // Optimal depth of the i-th puzzle.
+        public int getDepth(int i) {
+            return depths.get(i);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d solvable states, max depth %d (%d states), %d puzzles",
+                    states, getMaxDepth(), getLayerSize(getMaxDepth()), puzzles.size());
+        }
+    }
+}
@@ -4,6 +4,7 @@ import io.jenetics.AnyChromosome;
 import io.jenetics.AnyGene;
 import io.jenetics.Genotype;
 import solver.Board;
+import solver.SolvabilityFilter;
 import solver.Vehicle;
 
 import java.util.*;
@@ -11,12 +12,22 @@ import java.util.function.Predicate;
 
 public class BoardFactory {
 
+    private static final int MAX_ATTEMPTS = 100;
+
     private final int boardSize;
     private final Random rng;
+    private final SolvabilityFilter filter;
 
     public BoardFactory(int boardSize, Random rng) {
+        this(boardSize, rng, null);
+    }
+
+    // With a filter, boards it proves unsolvable are redrawn (up to
+    // MAX_ATTEMPTS times) instead of entering the population.
+    public BoardFactory(int boardSize, Random rng, SolvabilityFilter filter) {
         this.boardSize = boardSize;
         this.rng = rng;
+        this.filter = filter;
     }
 
     public Genotype<AnyGene<Board>> create() {
@@ -30,6 +41,15 @@ public class BoardFactory {
     }
 
     private Board generateRandomBoard() {
+        Board board = drawBoard();
+        for (int attempt = 1; filter != null && attempt < MAX_ATTEMPTS
+                && filter.classify(board) == SolvabilityFilter.Verdict.UNSOLVABLE; attempt++) {
+            board = drawBoard();
+        }
+        return board;
+    }
+
+    private Board drawBoard() {
         Map<Integer, Vehicle> vehicles = new HashMap<>();
         int id = 1;
 
@@ -6,16 +6,30 @@ import io.jenetics.*;
 import io.jenetics.engine.*;
 import solver.AStar;
 import solver.Board;
-
+import solver.CanonicalKey;
+import solver.ComponentCache;
+import solver.PuzzleIndex;
+import solver.SearchResult;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
 
 public class EvolutionMain {
 
-    public static void main(String[] args) {
+    // The optional arguments are the number of threads evaluating fitness
+    // and the directory of the index of puzzles found by earlier runs.
+    public static void main(String[] args) throws IOException {
         Random rng = new Random();
         int boardSize = 6;
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        ExecutorService executor = new ForkJoinPool(threads);
+        Path indexDirectory = Paths.get(args.length > 1 ? args[1] : System.getProperty("java.io.tmpdir") + "/rush-hour-puzzle-index");
 
         List<Board> easyPuzzles = new ArrayList<>();
         List<Board> mediumPuzzles = new ArrayList<>();
@@ -23,60 +37,82 @@ public class EvolutionMain {
         List<Board> veryHardPuzzles = new ArrayList<>();
         List<Board> extremePuzzles = new ArrayList<>();
 
-        for(int i = 0; i < 50; i++) {
-
-
-            BoardFactory boardFactory = new BoardFactory(boardSize, rng);
-            FitnessFunction fitnessFunction = new FitnessFunction();
-            BoardAlterer boardAlterer = new BoardAlterer();
-
-            Engine<AnyGene<Board>, Double> engine = Engine.builder(fitnessFunction, boardFactory::create)
-                    .alterers(
-                            boardAlterer,
-                            new Mutator<>(0.1)
-                    )
-                    .offspringSelector(new TournamentSelector<>())
-                    .survivorsSelector(new TournamentSelector<>())
-                    .populationSize(50)
-                    .maximizing()
-                    .build();
-
-            EvolutionStatistics<Double, ?> statistics = EvolutionStatistics.ofNumber();
-
-            Phenotype<AnyGene<Board>, Double> best = engine.stream()
-                    .limit(Limits.byFixedGeneration(200))
-                    .peek(statistics)
-                    .collect(EvolutionResult.toBestPhenotype());
-
-            System.out.println("Best evolved Rush Hour board:");
-            System.out.println("Fitness: " + best.fitness());
-//        best.genotype().chromosome().gene().allele().printGrid(); // ✅ clean
-
-            Board board = best.genotype().chromosome().gene().allele();
-            board.printGrid();
-            AStar solver = new AStar();
-            Heuristic heuristic = new BlockingHeuristic();
-            List<Board> solution = solver.solve(board, heuristic);
-            if (solution == null) {
-                System.out.println("No solution found.");
-            } else {
+        try (PuzzleIndex index = PuzzleIndex.open(indexDirectory)) {
+            for(int i = 0; i < 50; i++) {
+
+
+                FitnessFunction fitnessFunction = new FitnessFunction();
+                BoardFactory boardFactory = new BoardFactory(boardSize, rng, fitnessFunction.getFilter());
+                BoardAlterer boardAlterer = new BoardAlterer();
+
+                Engine<AnyGene<Board>, Double> engine = Engine.builder(fitnessFunction, boardFactory::create)
+                        .alterers(
+                                boardAlterer,
+                                new Mutator<>(0.1)
+                        )
+                        .offspringSelector(new TournamentSelector<>())
+                        .survivorsSelector(new TournamentSelector<>())
+                        .populationSize(50)
+                        .maximizing()
+                        .executor(executor)
+                        .build();
+
+                EvolutionStatistics<Double, ?> statistics = EvolutionStatistics.ofNumber();
+                ThroughputStatistics throughput = new ThroughputStatistics(fitnessFunction);
+
+                Phenotype<AnyGene<Board>, Double> best = engine.stream()
+                        .limit(Limits.byFixedGeneration(200))
+                        .peek(statistics)
+                        .peek(throughput)
+                        .collect(EvolutionResult.toBestPhenotype());
+
+                System.out.println(statistics);
+                System.out.println("Throughput: " + throughput);
+
+                System.out.println("Heuristic cache: " + fitnessFunction.getHeuristic());
+                System.out.println("Evaluations out of budget: " + fitnessFunction.getBudgetExhaustions());
+                System.out.println("Solvability filter: " + fitnessFunction.getFilter());
+                System.out.println("Component distances: " + fitnessFunction.getComponents());
+                System.out.println("Best evolved Rush Hour board:");
+                System.out.println("Fitness: " + best.fitness());
+    //        best.genotype().chromosome().gene().allele().printGrid(); // ✅ clean
+
+                Board board = best.genotype().chromosome().gene().allele();
+                board.printGrid();
+                AStar solver = new AStar();
+                Heuristic heuristic = new BlockingHeuristic();
+                SearchResult result = solver.search(board, heuristic, FitnessFunction.DEFAULT_BUDGET);
+                if (!result.isSolved()) {
+                    System.out.println("No solution found: " + result);
+                    continue;
+                }
+                // Boards with stacked vehicles have no canonical key.
+                if (!board.hasOverlappingVehicles()
+                        && !index.add(CanonicalKey.ofComponent(board, ComponentCache.DEFAULT_MAX_COMPONENT_SIZE))) {
+                    System.out.println("Skipping a puzzle found before");
+                    continue;
+                }
+                List<Board> solution = result.getSolutionPath();
                 System.out.println("Solution found with " + solution.size() + " moves:");
-            }
 
-            int depth = solution.size();
-
-            if (depth <= 15) {
-                easyPuzzles.add(board);
-            } else if (depth <= 25) {
-                mediumPuzzles.add(board);
-            } else if (depth <= 35) {
-                hardPuzzles.add(board);
-            } else if (depth <= 45){
-                veryHardPuzzles.add(board);
-            } else {
-                extremePuzzles.add(board);
-            }
+                int depth = solution.size();
 
+                if (depth <= 15) {
+                    easyPuzzles.add(board);
+                } else if (depth <= 25) {
+                    mediumPuzzles.add(board);
+                } else if (depth <= 35) {
+                    hardPuzzles.add(board);
+                } else if (depth <= 45){
+                    veryHardPuzzles.add(board);
+                } else {
+                    extremePuzzles.add(board);
+                }
+
+            }
+            System.out.println("Puzzle index: " + index);
+        } finally {
+            executor.shutdown();
         }
 
         System.out.println("🟢 Easy:   " + easyPuzzles.size());
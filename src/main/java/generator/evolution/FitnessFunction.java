@@ -4,25 +4,145 @@ import io.jenetics.AnyGene;
 import io.jenetics.Genotype;
 import solver.Board;
 import solver.AStar;
+import solver.AnytimeAStar;
+import solver.CanonicalKey;
+import solver.ComponentCache;
+import solver.SearchBudget;
+import solver.SearchResult;
+import solver.SolvabilityFilter;
 import heuristics.BlockingHeuristic;
+import heuristics.CachingHeuristic;
 
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Function;
 
+// Safe to call from several threads at once, which is how the engine's
+// executor evaluates a population. Results are cached by the canonical key
+// of the board, since mutations often leave a board unchanged and
+// survivors come back every generation.
 public class FitnessFunction implements Function<Genotype<AnyGene<Board>>, Double> {
+    public static final int DEFAULT_CACHE_CAPACITY = 1 << 18;
+    // Far above any 6x6 puzzle's reachable component, so it only stops
+    // searches that have gone wrong.
+    public static final SearchBudget DEFAULT_BUDGET = SearchBudget.ofNodes(1_000_000).withStates(4_000_000).withMillis(5_000);
+
+    // Shared by all evaluations; survivors and re-created phenotypes hit it.
+    private final CachingHeuristic heuristic = new CachingHeuristic(new BlockingHeuristic());
+    private final SolvabilityFilter filter = new SolvabilityFilter();
+    private final double initialWeight;
+    private final SearchBudget budget;
+    private final LongAdder budgetExhaustions = new LongAdder();
+    // Alterer mutations slide one vehicle, so they stay in their parent's
+    // component and are answered from its distance table.
+    private final ComponentCache components = new ComponentCache();
+    private final ThreadLocal<AStar> solvers = ThreadLocal.withInitial(AStar::new);
+    // Keyed by CanonicalKey, or by a copy of the board itself when it has
+    // stacked vehicles (which most random boards do) and no canonical key.
+    private final Map<Object, Double> cache = new ConcurrentHashMap<>();
+    private final LongAdder evaluations = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+
+    // Scores by optimal solution length.
+    public FitnessFunction() {
+        this(1.0, DEFAULT_BUDGET);
+    }
+
+    // Scores by the best solution anytime search finds within the budget,
+    // starting at initialWeight; it is at most that many times too long.
+    public FitnessFunction(double initialWeight, SearchBudget budget) {
+        this.initialWeight = initialWeight;
+        this.budget = budget;
+    }
 
     @Override
     public Double apply(Genotype<AnyGene<Board>> genotype) {
         Board board = genotype.chromosome().gene().allele(); // ✅ correct in 8.2
+        evaluations.increment();
+
+        // Not computeIfAbsent: a long solve would block other keys of its bin.
+        Object key = board.hasOverlappingVehicles() ? board.clone() : CanonicalKey.of(board);
+        Double cached = cache.get(key);
+        if (cached != null) {
+            cacheHits.increment();
+            return cached;
+        }
+        Double fitness = evaluate(board);
+        if (cache.size() >= DEFAULT_CACHE_CAPACITY) {
+            cache.clear();
+        }
+        cache.putIfAbsent(key, fitness);
+        return fitness;
+    }
 
-        AStar solver = new AStar();
-        BlockingHeuristic heuristic = new BlockingHeuristic();
-        List<Board> solution = solver.solve(board, heuristic);
+    private Double evaluate(Board board) {
+        SolvabilityFilter.Verdict verdict = filter.classify(board);
+        if (verdict == SolvabilityFilter.Verdict.UNSOLVABLE) {
+            return -10000.0;
+        } else if (verdict.isDecided()) {
+            return (double) verdict.getDepth() + 1; // Same scale as solution.size()
+        }
 
-        if (solution == null) {
-            return -10000.0; // Punish unsolvable
+        // Only boards that are structurally new and too large, or stacked,
+        // are searched.
+        int depth = components.distance(board);
+        if (depth == ComponentCache.UNSOLVABLE) {
+            return -10000.0;
+        } else if (depth != ComponentCache.UNKNOWN) {
+            return (double) depth + 1;
+        }
+
+        List<Board> solution;
+        boolean exhausted;
+        if (initialWeight <= 1.0) {
+            SearchResult result = solvers.get().search(board, heuristic, budget);
+            solution = result.getSolutionPath();
+            exhausted = result.isBudgetExhausted();
         } else {
+            AnytimeAStar solver = new AnytimeAStar(initialWeight, AnytimeAStar.DEFAULT_WEIGHT_STEP, budget);
+            solution = solver.solve(board, heuristic);
+            exhausted = solution == null && solver.isBudgetExhausted();
+        }
+
+        if (solution != null) {
             return (double) solution.size(); // Reward longer solutions
+        } else if (exhausted) {
+            budgetExhaustions.increment();
+            return 0.0; // Unknown: below every solved board, above proven unsolvable ones
+        } else {
+            return -10000.0; // Punish unsolvable
         }
     }
+
+    public long getEvaluations() {
+        return evaluations.sum();
+    }
+
+    public long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    public double getCacheHitRate() {
+        long evaluations = getEvaluations();
+        return evaluations == 0 ? 0.0 : (double) getCacheHits() / evaluations;
+    }
+
+    // Evaluations that ran out of budget before finding a solution.
+    public long getBudgetExhaustions() {
+        return budgetExhaustions.sum();
+    }
+
+    public ComponentCache getComponents() {
+        return components;
+    }
+
+    public SolvabilityFilter getFilter() {
+        return filter;
+    }
+
+    public CachingHeuristic getHeuristic() {
+        return heuristic;
+    }
 }
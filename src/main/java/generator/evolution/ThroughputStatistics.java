@@ -0,0 +1,52 @@
+package generator.evolution;
+
+import io.jenetics.engine.EvolutionResult;
+
+import java.util.function.Consumer;
+
+// Per-run throughput of a fitness function, fed by the evolution stream
+// next to EvolutionStatistics. Evaluation time is what the engine reports
+// for its evaluation phase, so it excludes selection and altering.
+public class ThroughputStatistics implements Consumer<EvolutionResult<?, ?>> {
+    private final FitnessFunction fitnessFunction;
+    private final long startTime = System.nanoTime();
+    private final long evaluationsBefore;
+    private final long cacheHitsBefore;
+    private long generations;
+    private long evaluationNanos;
+    private long lastTime = startTime;
+
+    public ThroughputStatistics(FitnessFunction fitnessFunction) {
+        this.fitnessFunction = fitnessFunction;
+        this.evaluationsBefore = fitnessFunction.getEvaluations();
+        this.cacheHitsBefore = fitnessFunction.getCacheHits();
+    }
+
+    @Override
+    public void accept(EvolutionResult<?, ?> result) {
+        generations++;
+        evaluationNanos += result.durations().evaluationDuration().toNanos();
+        lastTime = System.nanoTime();
+    }
+
+    public long getEvaluations() {
+        return fitnessFunction.getEvaluations() - evaluationsBefore;
+    }
+
+    public double getEvaluationsPerSecond() {
+        return evaluationNanos == 0 ? 0.0 : getEvaluations() * 1e9 / evaluationNanos;
+    }
+
+    public double getCacheHitRate() {
+        long evaluations = getEvaluations();
+        return evaluations == 0 ? 0.0 : (double) (fitnessFunction.getCacheHits() - cacheHitsBefore) / evaluations;
+    }
+
+    @Override
+    public String toString() {
+        double seconds = (lastTime - startTime) / 1e9;
+        return String.format("generations=%d evaluations=%d (%.0f/s while evaluating, %.0f/s overall) solve cache hit rate=%.1f%%",
+                generations, getEvaluations(), getEvaluationsPerSecond(),
+                seconds == 0 ? 0.0 : getEvaluations() / seconds, 100 * getCacheHitRate());
+    }
+}
@@ -11,7 +11,7 @@ public class BlockingHeuristic implements Heuristic{
         int x = redCar.getStartX() + redCar.getLength();
         int y = redCar.getStartY();
         while(x < board.getBoardSize()){
-            if(board.getGrid()[y][x] != 0){
+            if(!board.isCellEmpty(x, y)){
                 blockingVehicles++;
             }
             x++;
@@ -0,0 +1,195 @@
+package heuristics;
+
+import solver.Board;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+// Remembers the values of another heuristic by the board's Zobrist key,
+// which depends on the vehicles as well as their positions, so one cache
+// can serve boards of different layouts. Entries live in a fixed-size
+// 4-way set-associative table. When a set is full, its CLOCK hand evicts
+// the first entry that has not been hit since the hand last passed it.
+// Sets are locked in stripes, so an instance can be shared between threads
+// as long as the wrapped heuristic can. Bounded calls and the incremental
+// parent-to-child path are passed on to the wrapped heuristic on a miss.
+public class CachingHeuristic implements IncrementalHeuristic {
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+    private static final int WAYS = 4;
+    private static final int STRIPES = 64;
+    private static final int MISS = Integer.MIN_VALUE;
+    private static final long ALL = -1L;
+
+    private final Heuristic delegate;
+    private final long[] keys;
+    private final int[] values;
+    private final long[] dependencyCells;
+    private final long[] dependencyVehicles;
+    private final boolean[] used;
+    private final boolean[] referenced;
+    private final byte[] hands;
+    private final int setMask;
+    private final Object[] locks;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public CachingHeuristic(Heuristic delegate) {
+        this(delegate, DEFAULT_CAPACITY);
+    }
+
+    // The capacity is rounded up to a power of two.
+    public CachingHeuristic(Heuristic delegate, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Cache capacity must be positive: " + capacity);
+        }
+        int sets = Integer.highestOneBit(Math.max(capacity / WAYS, 1) * 2 - 1);
+        this.delegate = delegate;
+        this.keys = new long[sets * WAYS];
+        this.values = new int[sets * WAYS];
+        this.dependencyCells = new long[sets * WAYS];
+        this.dependencyVehicles = new long[sets * WAYS];
+        this.used = new boolean[sets * WAYS];
+        this.referenced = new boolean[sets * WAYS];
+        this.hands = new byte[sets];
+        this.setMask = sets - 1;
+        this.locks = new Object[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    @Override
+    public int calculateH(Board board) {
+        return calculateH(board, Integer.MAX_VALUE);
+    }
+
+    // Only exact values are cached: a result at or above the bound may be
+    // a lower bound of the real one.
+    @Override
+    public int calculateH(Board board, int bound) {
+        long key = board.getZobristKey();
+        int cached = lookup(key, null);
+        if (cached != MISS) {
+            return cached;
+        }
+        int h = delegate.calculateH(board, bound);
+        if (h < bound) {
+            store(key, h, null);
+        }
+        return h;
+    }
+
+    // Dependencies are cached with the value when the delegate is
+    // incremental; otherwise they cover everything, so children are always
+    // looked up in full.
+    @Override
+    public int calculateH(Board board, long[] dependencies) {
+        long key = board.getZobristKey();
+        int cached = lookup(key, dependencies);
+        if (cached != MISS) {
+            return cached;
+        }
+        int h;
+        if (delegate instanceof IncrementalHeuristic) {
+            h = ((IncrementalHeuristic) delegate).calculateH(board, dependencies);
+        } else {
+            h = delegate.calculateH(board);
+            dependencies[0] = ALL;
+            dependencies[1] = ALL;
+        }
+        store(key, h, dependencies);
+        return h;
+    }
+
+    // Returns MISS, or the value with its dependencies copied into
+    // dependencies when that is not null.
+    private int lookup(long key, long[] dependencies) {
+        int set = (int) (key ^ (key >>> 32)) & setMask;
+        int base = set * WAYS;
+        synchronized (locks[set & (STRIPES - 1)]) {
+            for (int way = base; way < base + WAYS; way++) {
+                if (used[way] && keys[way] == key) {
+                    referenced[way] = true;
+                    hits.increment();
+                    if (dependencies != null) {
+                        dependencies[0] = dependencyCells[way];
+                        dependencies[1] = dependencyVehicles[way];
+                    }
+                    return values[way];
+                }
+            }
+        }
+        misses.increment();
+        return MISS;
+    }
+
+    private void store(long key, int h, long[] dependencies) {
+        int set = (int) (key ^ (key >>> 32)) & setMask;
+        int base = set * WAYS;
+        synchronized (locks[set & (STRIPES - 1)]) {
+            int slot = -1;
+            for (int way = base; way < base + WAYS; way++) {
+                if (!used[way] || keys[way] == key) {
+                    slot = way;
+                    break;
+                }
+            }
+            if (slot == -1) {
+                int hand = hands[set];
+                while (referenced[base + hand]) {
+                    referenced[base + hand] = false;
+                    hand = (hand + 1) % WAYS;
+                }
+                slot = base + hand;
+                hands[set] = (byte) ((hand + 1) % WAYS);
+                evictions.increment();
+            }
+            keys[slot] = key;
+            values[slot] = h;
+            dependencyCells[slot] = dependencies == null ? ALL : dependencies[0];
+            dependencyVehicles[slot] = dependencies == null ? ALL : dependencies[1];
+            used[slot] = true;
+            referenced[slot] = false;
+        }
+    }
+
+    public void clear() {
+        for (int set = 0; set <= setMask; set++) {
+            synchronized (locks[set & (STRIPES - 1)]) {
+                Arrays.fill(used, set * WAYS, (set + 1) * WAYS, false);
+            }
+        }
+        hits.reset();
+        misses.reset();
+        evictions.reset();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public double getHitRate() {
+        long lookups = getHits() + getMisses();
+        return lookups == 0 ? 0.0 : (double) getHits() / lookups;
+    }
+
+    public int capacity() {
+        return keys.length;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("hits=%d misses=%d evictions=%d hit rate=%.1f%%",
+                getHits(), getMisses(), getEvictions(), 100 * getHitRate());
+    }
+}
@@ -1,199 +1,110 @@
 package heuristics;
 
 import solver.Board;
-import solver.Vehicle;
+import solver.BoardLayout;
 
-import java.util.*;
-
-public class ChainBlockingHeuristic implements Heuristic {
-    int blockingVehicles = 0;
-    List<Integer> blockVehicles = new ArrayList<>();
+// Counts the vehicles on the red car's way out plus, breadth first, every
+// vehicle that keeps one of them from clearing the way. Vehicles are tracked
+// by layout index in a bitmask and the queue is a per-thread buffer, so a
+// single instance can be shared by parallel solvers.
+public class ChainBlockingHeuristic implements IncrementalHeuristic {
+    private static final ThreadLocal<int[]> QUEUE = ThreadLocal.withInitial(() -> new int[BoardLayout.MAX_VEHICLES]);
 
     @Override
     public int calculateH(Board board) {
-        Vehicle redCar = board.getRedCar();
-        int[][] grid = board.getGrid();
-        int boardSize = board.getBoardSize();
-
-        Set<Integer> visitedVehicles = new HashSet<>();
-
-        int x = redCar.getStartX() + redCar.getLength();
-        int y = redCar.getStartY();
-        visitedVehicles.add(redCar.getId());
-
-        while (x < boardSize) {
-            int vehicleId = grid[y][x];
-            if (isValidVehicle(vehicleId, visitedVehicles)) {
-                Vehicle vehicle = board.getVehicleById(vehicleId);
-                if (vehicle == null) {
-                    x++;
-                    continue;
-                }
-                blockingVehicles++;
-                blockVehicles.add(vehicleId);
-                exploreBlockingVehicles(vehicleId, board, visitedVehicles);
-            }
-            x++;
-        }
-
-        return blockingVehicles;
+        return calculateH(board, null);
     }
 
-    private void exploreBlockingVehicles(int vehicleId, Board board, Set<Integer> visitedVehicles) {
-        Queue<Integer> queue = new LinkedList<>();
-        queue.add(vehicleId);
+    // dependencies may be null when the caller does not need them.
+    @Override
+    public int calculateH(Board board, long[] dependencies) {
+        BoardLayout layout = board.getLayout();
+        int boardSize = layout.getBoardSize();
+        int[] queue = QUEUE.get();
 
-        while (!queue.isEmpty()) {
-            int currentVehicleId = queue.poll();
-            Vehicle currentVehicle = board.getVehicleById(currentVehicleId);
-            if (currentVehicle == null) continue;
-            addBlockingVehiclesToQueue(currentVehicle, board, visitedVehicles, queue);
-        }
-    }
+        int redCar = layout.getTargetIndex();
+        int y = layout.getLane(redCar);
+        long visited = 1L << redCar;
+        long cells = 0L;
+        int blockingVehicles = 0;
 
-    private void addBlockingVehiclesToQueue(Vehicle vehicle, Board board, Set<Integer> visitedVehicles, Queue<Integer> queue) {
-        int[][] grid = board.getGrid();
-        int boardSize = board.getBoardSize();
-        List<int[]> blockingCells = getBlockingCells(vehicle, boardSize);
-        for (int[] cell : blockingCells) {
-            int blockerId = grid[cell[1]][cell[0]];
-            if (isValidVehicle(blockerId, visitedVehicles)) {
-                Vehicle blocker = board.getVehicleById(blockerId);
-                if (blocker == null) continue;
-                if (!canClearPath(blocker, cell, board)) {
-                    queue.add(blockerId);
-                    blockingVehicles++;
-                    blockVehicles.add(blockerId);
-                }
+        for (int x = board.getPosition(redCar) + layout.getLength(redCar); x < boardSize; x++) {
+            cells |= layout.cellBit(x, y);
+            int vehicle = board.getVehicleIndexAt(x, y);
+            if (vehicle == -1 || (visited & (1L << vehicle)) != 0) {
+                continue;
             }
-        }
-    }
+            visited |= 1L << vehicle;
+            blockingVehicles++;
 
-    private boolean canClearPath(Vehicle blocker, int[] cell, Board board) {
-        if (blocker == null) return true;
-
-        int startX = blocker.getStartX();
-        int startY = blocker.getStartY();
-        int endX = startX + blocker.getLength() - 1;
-        int endY = startY + blocker.getLength() - 1;
-
-        if (blocker.getIsHorizontal()) {
-            if (blocker.getLength() == 2) {
-                if (cell[0] == startX) {
-                    return canMove(blocker, board, 1) || canMove(blocker, board, -2);
-                }
-                if (cell[0] == endX) {
-                    return canMove(blocker, board, -1) || canMove(blocker, board, 2);
-                }
-            } else {
-                if (cell[0] == startX) {
-                    return canMove(blocker, board, 1) || canMove(blocker, board, -3);
-                }
-                if (cell[0] == endX) {
-                    return canMove(blocker, board, -1) || canMove(blocker, board, 3);
-                }
-                int middle = startX + 1;
-                if (cell[0] == middle) {
-                    return canMove(blocker, board, 2) || canMove(blocker, board, -2);
-                }
-            }
-        } else {
-            if (blocker.getLength() == 2) {
-                if (cell[1] == startY) {
-                    return canMove(blocker, board, 1) || canMove(blocker, board, -2);
-                }
-                if (cell[1] == endY) {
-                    return canMove(blocker, board, -1) || canMove(blocker, board, 2);
-                }
-            } else {
-                if (cell[1] == startY) {
-                    return canMove(blocker, board, 1) || canMove(blocker, board, -3);
-                }
-                if (cell[1] == endY) {
-                    return canMove(blocker, board, -1) || canMove(blocker, board, 3);
-                }
-                int middle = startY + 1;
-                if (cell[1] == middle) {
-                    return canMove(blocker, board, 2) || canMove(blocker, board, -2);
-                }
-            }
-        }
-
-        return false;
-    }
-
-    private boolean canMove(Vehicle vehicle, Board board, int steps) {
-        int[][] grid = board.getGrid();
-        int boardSize = board.getBoardSize();
-
-        int startX = vehicle.getStartX();
-        int startY = vehicle.getStartY();
-        int length = vehicle.getLength();
-
-        if (vehicle.getIsHorizontal()) {
-            if (steps > 0) {
-                for (int i = 1; i <= steps; i++) {
-                    int x = startX + length - 1 + i;
-                    if (x >= boardSize || grid[startY][x] != 0) {
-                        return false;
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = vehicle;
+            while (head < tail) {
+                int current = queue[head++];
+                int position = board.getPosition(current);
+                int length = layout.getLength(current);
+                // the cells just before and just after the vehicle in its lane
+                for (int cell = position - 1; cell <= position + length; cell += length + 1) {
+                    if (cell < 0 || cell >= boardSize) {
+                        continue;
                     }
-                }
-            } else {
-                for (int i = 1; i <= Math.abs(steps); i++) {
-                    int x = startX - i;
-                    if (x < 0 || grid[startY][x] != 0) {
-                        return false;
+                    int cellX = layout.isHorizontal(current) ? cell : layout.getLane(current);
+                    int cellY = layout.isHorizontal(current) ? layout.getLane(current) : cell;
+                    cells |= layout.cellBit(cellX, cellY);
+                    int blocker = board.getVehicleIndexAt(cellX, cellY);
+                    if (blocker == -1 || (visited & (1L << blocker)) != 0) {
+                        continue;
                     }
-                }
-            }
-        } else {
-            if (steps > 0) {
-                for (int i = 1; i <= steps; i++) {
-                    int y = startY + length - 1 + i;
-                    if (y >= boardSize || grid[y][startX] != 0) {
-                        return false;
-                    }
-                }
-            } else {
-                for (int i = 1; i <= Math.abs(steps); i++) {
-                    int y = startY - i;
-                    if (y < 0 || grid[y][startX] != 0) {
-                        return false;
+                    visited |= 1L << blocker;
+                    // clearing the path depends on everything in the blocker's lane
+                    cells |= layout.getLaneMask(blocker);
+                    if (!canClearPath(board, blocker, cellX, cellY)) {
+                        queue[tail++] = blocker;
+                        blockingVehicles++;
                     }
                 }
             }
         }
 
-        return true;
+        if (dependencies != null) {
+            dependencies[0] = cells;
+            dependencies[1] = visited;
+        }
+        return blockingVehicles;
     }
 
-    private List<int[]> getBlockingCells(Vehicle vehicle, int boardSize) {
-        List<int[]> cells = new ArrayList<>();
-        int startX = vehicle.getStartX();
-        int startY = vehicle.getStartY();
-        int length = vehicle.getLength();
+    // Whether the blocker can free the cell with a single slide, depending on
+    // which of its own cells covers it.
+    private boolean canClearPath(Board board, int blocker, int cellX, int cellY) {
+        BoardLayout layout = board.getLayout();
+        int length = layout.getLength(blocker);
+        int offset = (layout.isHorizontal(blocker) ? cellX : cellY) - board.getPosition(blocker);
 
-        if (vehicle.getIsHorizontal()) {
-            if (startX - 1 >= 0) {
-                cells.add(new int[]{startX - 1, startY});
+        if (length == 2) {
+            if (offset == 0) {
+                return canMove(board, blocker, 1) || canMove(board, blocker, -2);
             }
-            if (startX + length < boardSize) {
-                cells.add(new int[]{startX + length, startY});
+            if (offset == 1) {
+                return canMove(board, blocker, -1) || canMove(board, blocker, 2);
             }
         } else {
-            if (startY - 1 >= 0) {
-                cells.add(new int[]{startX, startY - 1});
+            if (offset == 0) {
+                return canMove(board, blocker, 1) || canMove(board, blocker, -3);
             }
-            if (startY + length < boardSize) {
-                cells.add(new int[]{startX, startY + length});
+            if (offset == length - 1) {
+                return canMove(board, blocker, -1) || canMove(board, blocker, 3);
+            }
+            if (offset == 1) {
+                return canMove(board, blocker, 2) || canMove(board, blocker, -2);
             }
         }
 
-        return cells;
+        return false;
     }
 
-    private boolean isValidVehicle(int vehicleId, Set<Integer> visitedVehicles) {
-        return vehicleId != 0 && visitedVehicles.add(vehicleId);
+    private boolean canMove(Board board, int vehicle, int steps) {
+        return board.canReach(vehicle, board.getPosition(vehicle) + steps);
     }
 }
 
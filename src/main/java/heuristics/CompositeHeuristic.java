@@ -0,0 +1,168 @@
+package heuristics;
+
+import solver.Board;
+
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+// Maximum of several heuristics. Components are tried in order of how often
+// they give the maximum per nanosecond spent, and the evaluation stops as
+// soon as the bound passed by the caller is reached. One evaluation in
+// SAMPLE_RATE runs every component in full and is timed; only these samples
+// count wins, so the statistics do not depend on the current order or on
+// where a bound cut an evaluation short. Every REORDER_INTERVAL evaluations
+// the order is refreshed from them.
+public class CompositeHeuristic implements Heuristic {
+    private static final int REORDER_INTERVAL = 1 << 12;
+    private static final int SAMPLE_RATE = 16;
+
+    private final Heuristic[] components;
+    private final LongAdder[] calls;
+    private final LongAdder[] nanos;
+    private final LongAdder[] wins;
+    private final LongAdder samples = new LongAdder();
+    private final LongAdder evaluations = new LongAdder();
+    private final LongAdder shortCircuits = new LongAdder();
+    private volatile int[] order;
+    // Only drives sampling and reordering, so lost updates between threads are harmless.
+    private int tick;
+
+    public CompositeHeuristic(Heuristic... components) {
+        if (components.length == 0) {
+            throw new IllegalArgumentException("Composite heuristic needs at least one component");
+        }
+        this.components = components.clone();
+        this.calls = adders(components.length);
+        this.nanos = adders(components.length);
+        this.wins = adders(components.length);
+        this.order = new int[components.length];
+        for (int i = 0; i < components.length; i++) {
+            order[i] = i;
+        }
+    }
+
+    private static LongAdder[] adders(int count) {
+        LongAdder[] adders = new LongAdder[count];
+        for (int i = 0; i < count; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    @Override
+    public int calculateH(Board board) {
+        return calculateH(board, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int calculateH(Board board, int bound) {
+        int current = ++tick;
+        int best = 0;
+        if (current % SAMPLE_RATE == 0) {
+            best = sample(board);
+        } else {
+            for (int i : order) {
+                best = Math.max(best, components[i].calculateH(board, bound));
+                calls[i].increment();
+                if (best >= bound) {
+                    shortCircuits.increment();
+                    break;
+                }
+            }
+        }
+        evaluations.increment();
+        if (current % REORDER_INTERVAL == 0) {
+            reorder();
+        }
+        return best;
+    }
+
+    // Every component without a bound; each one that reaches the maximum wins.
+    private int sample(Board board) {
+        int[] values = new int[components.length];
+        int best = 0;
+        for (int i = 0; i < components.length; i++) {
+            long startTime = System.nanoTime();
+            values[i] = components[i].calculateH(board);
+            nanos[i].add(System.nanoTime() - startTime);
+            calls[i].increment();
+            best = Math.max(best, values[i]);
+        }
+        for (int i = 0; i < components.length; i++) {
+            if (values[i] == best) {
+                wins[i].increment();
+            }
+        }
+        samples.increment();
+        return best;
+    }
+
+    private void reorder() {
+        Integer[] ranked = new Integer[components.length];
+        double[] score = new double[components.length];
+        for (int i = 0; i < components.length; i++) {
+            ranked[i] = i;
+            score[i] = (wins[i].sum() + 1.0) / (samples.sum() + 1.0) / getAverageNanos(i);
+        }
+        Arrays.sort(ranked, (a, b) -> Double.compare(score[b], score[a]));
+        int[] newOrder = new int[components.length];
+        for (int i = 0; i < components.length; i++) {
+            newOrder[i] = ranked[i];
+        }
+        order = newOrder;
+    }
+
+    public int getComponentCount() {
+        return components.length;
+    }
+
+    public Heuristic getComponent(int index) {
+        return components[index];
+    }
+
+    // Component indices in the order they are currently tried.
+    public int[] getOrder() {
+        return order.clone();
+    }
+
+    public long getCalls(int index) {
+        return calls[index].sum();
+    }
+
+    // Sampled mean time per call, or 1 before anything was timed.
+    public double getAverageNanos(int index) {
+        long timed = samples.sum();
+        return timed == 0 ? 1.0 : (double) nanos[index].sum() / timed;
+    }
+
+    // Sampled evaluations in which the component reached the maximum; ties
+    // count for every component involved.
+    public long getWins(int index) {
+        return wins[index].sum();
+    }
+
+    // Evaluations that ran every component in full.
+    public long getSamples() {
+        return samples.sum();
+    }
+
+    public long getEvaluations() {
+        return evaluations.sum();
+    }
+
+    public long getShortCircuits() {
+        return shortCircuits.sum();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-28s %12s %10s %12s%n", "Component", "Calls", "ns/call", "Wins"));
+        for (int i : order) {
+            sb.append(String.format("%-28s %12d %10.1f %12d%n", components[i].getClass().getSimpleName(),
+                    getCalls(i), getAverageNanos(i), getWins(i)));
+        }
+        sb.append(String.format("Evaluations: %d, sampled: %d, stopped early: %d", getEvaluations(), getSamples(), getShortCircuits()));
+        return sb.toString();
+    }
+}
@@ -0,0 +1,41 @@
+package heuristics;
+
+import solver.Board;
+import solver.BoardLayout;
+import solver.DistanceDatabase;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Exact distances from a DistanceDatabase per layout class, built on first
+// use. Unsolvable states get DistanceDatabase.UNSOLVABLE.
+public class DistanceDatabaseHeuristic implements Heuristic {
+    private final Path directory;
+    private final Map<BoardLayout, DistanceDatabase> databases = new ConcurrentHashMap<>();
+    // Layout hashing is structural, so the last lookup is kept by identity.
+    private volatile DistanceDatabase last;
+
+    public DistanceDatabaseHeuristic() {
+        this(Paths.get(System.getProperty("java.io.tmpdir"), "rush-hour-distances"));
+    }
+
+    public DistanceDatabaseHeuristic(Path directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    public int calculateH(Board board) {
+        return databaseFor(board.getLayout()).distance(board.getStateKey());
+    }
+
+    public DistanceDatabase databaseFor(BoardLayout layout) {
+        DistanceDatabase database = last;
+        if (database == null || database.getLayout() != layout) {
+            database = databases.computeIfAbsent(layout, key -> DistanceDatabase.load(key, directory));
+            last = database;
+        }
+        return database;
+    }
+}
@@ -4,4 +4,10 @@ import solver.Board;
 
 public interface Heuristic {
     int calculateH(Board board);
+
+    // Callers that only need to know whether h reaches bound may get any
+    // admissible value that is at least bound instead of the exact one.
+    default int calculateH(Board board, int bound) {
+        return calculateH(board);
+    }
 }
@@ -0,0 +1,31 @@
+package heuristics;
+
+import solver.Board;
+import solver.BoardLayout;
+import solver.Move;
+
+// A heuristic that reports what its value was read from, so a child board
+// can reuse the parent's value when the move left all of it untouched.
+// Dependencies are two bitmasks: dependencies[0] holds the cells whose
+// occupancy was looked at, dependencies[1] the layout indices of the
+// vehicles whose position or identity was.
+public interface IncrementalHeuristic extends Heuristic {
+
+    int calculateH(Board board, long[] dependencies);
+
+    // h of a board reached from a parent by the move, given the parent's h
+    // and dependencies. Moves touching the exit row are always evaluated
+    // in full.
+    default int calculateH(Board board, int move, int parentH, long[] parentDependencies, long[] dependencies) {
+        BoardLayout layout = board.getLayout();
+        int vehicle = Move.vehicleIndex(move);
+        long changed = layout.cellMask(vehicle, Move.from(move)) ^ layout.cellMask(vehicle, Move.to(move));
+        long exitRow = layout.getLaneMask(layout.getTargetIndex());
+        if ((parentDependencies[1] & (1L << vehicle)) == 0 && (changed & (parentDependencies[0] | exitRow)) == 0) {
+            dependencies[0] = parentDependencies[0];
+            dependencies[1] = parentDependencies[1];
+            return parentH;
+        }
+        return calculateH(board, dependencies);
+    }
+}
@@ -1,68 +1,55 @@
 package heuristics;
 
 import solver.Board;
-import solver.Vehicle;
+import solver.BoardLayout;
 
-import java.util.ArrayList;
-import java.util.List;
-
-public class MovementPotentialHeuristic implements Heuristic {
+// Every vehicle in front of the red car costs one move, or two when it
+// cannot step aside to either end of its lane.
+public class MovementPotentialHeuristic implements IncrementalHeuristic {
 
     @Override
     public int calculateH(Board board) {
-        Vehicle redCar = board.getRedCar();
-        int h = 0;
-
-        List<Integer> blockingVehicles = getBlockingVehicleIds(board, redCar);
-
-        for (Integer vehicleId : blockingVehicles) {
-            Vehicle blockingVehicle = board.getVehicleById(vehicleId);
-            h += canVehicleBeMoved(blockingVehicle, board) ? 1 : 2;
-        }
-
-        return h;
+        return calculateH(board, null);
     }
 
-    private boolean canVehicleBeMoved(Vehicle vehicle, Board board) {
-        if (vehicle.getIsHorizontal()) {
-            return canMove(vehicle, board, -1, 0) || canMove(vehicle, board, 1, 0);
-        } else {
-            return canMove(vehicle, board, 0, -1) || canMove(vehicle, board, 0, 1);
-        }
-    }
-    private boolean canMove(Vehicle vehicle, Board board, int dx, int dy) {
-        int x, y;
-        int[][] grid = board.getGrid();
-
-        if (dx == -1 || dy == -1) {
-            x = vehicle.getStartX() + (dx == -1 ? -1 : 0);
-            y = vehicle.getStartY() + (dy == -1 ? -1 : 0);
-        } else {
-            x = vehicle.getIsHorizontal() ? vehicle.getStartX() + vehicle.getLength() : vehicle.getStartX();
-            y = vehicle.getIsHorizontal() ? vehicle.getStartY() : vehicle.getStartY() + vehicle.getLength();
-        }
+    // dependencies may be null when the caller does not need them.
+    @Override
+    public int calculateH(Board board, long[] dependencies) {
+        BoardLayout layout = board.getLayout();
+        int boardSize = layout.getBoardSize();
+        int redCar = layout.getTargetIndex();
+        int y = layout.getLane(redCar);
+        long cells = 0L;
+        long vehicles = 1L << redCar;
+        int h = 0;
 
-        if (x >= 0 && x < board.getBoardSize() && y >= 0 && y < board.getBoardSize()) {
-            return grid[y][x] == 0;
+        for (int x = board.getPosition(redCar) + layout.getLength(redCar); x < boardSize; x++) {
+            cells |= layout.cellBit(x, y);
+            int vehicle = board.getVehicleIndexAt(x, y);
+            if (vehicle == -1 || (vehicles & (1L << vehicle)) != 0) {
+                continue;
+            }
+            vehicles |= 1L << vehicle;
+
+            boolean movable = false;
+            int position = board.getPosition(vehicle);
+            for (int cell = position - 1; cell <= position + layout.getLength(vehicle); cell += layout.getLength(vehicle) + 1) {
+                if (cell < 0 || cell >= boardSize) {
+                    continue;
+                }
+                long bit = layout.isHorizontal(vehicle)
+                        ? layout.cellBit(cell, layout.getLane(vehicle))
+                        : layout.cellBit(layout.getLane(vehicle), cell);
+                cells |= bit;
+                movable |= (board.getOccupancy() & bit) == 0;
+            }
+            h += movable ? 1 : 2;
         }
 
-        return false;
-    }
-
-    private List<Integer> getBlockingVehicleIds(Board board, Vehicle vehicle) {
-        List<Integer> blockingVehicleIds = new ArrayList<>();
-        int x = vehicle.getStartX() + vehicle.getLength();
-        int y = vehicle.getStartY();
-        int[][] grid = board.getGrid();
-
-        while (x < board.getBoardSize()) {
-            int cellValue = grid[y][x];
-            if (cellValue != 0 && !blockingVehicleIds.contains(cellValue)) {
-                blockingVehicleIds.add(cellValue);
-            }
-            x++;
+        if (dependencies != null) {
+            dependencies[0] = cells;
+            dependencies[1] = vehicles;
         }
-        return blockingVehicleIds;
+        return h;
     }
 }
-
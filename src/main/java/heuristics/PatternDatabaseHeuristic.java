@@ -0,0 +1,162 @@
+package heuristics;
+
+import solver.Board;
+import solver.BoardLayout;
+import solver.PatternDatabase;
+import solver.Vehicle;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Pattern database heuristic. Each pattern keeps the red car, the other
+// vehicles in its row and a group of vertical vehicles that cross that row,
+// topped up with horizontal vehicles from the rows nearest to it, and
+// ignores everything else. Its exact solution length is therefore a lower
+// bound for the full board. Vertical vehicles nearest the exit go into the
+// first pattern, and another pattern is opened whenever a table would
+// outgrow maxPatternSize. The heuristic is the maximum over the patterns.
+// Tables are cached on disk per pattern shape, so they are shared by
+// puzzles and runs.
+public class PatternDatabaseHeuristic implements Heuristic {
+    public static final int DEFAULT_MAX_PATTERN_SIZE = 1 << 22;
+
+    private final Path directory;
+    private final int maxPatternSize;
+    private final Map<BoardLayout, Projection[]> patterns = new ConcurrentHashMap<>();
+    // Layout hashing is structural, so the last lookup is kept by identity.
+    private volatile LayoutPatterns last;
+
+    public PatternDatabaseHeuristic() {
+        this(Paths.get(System.getProperty("java.io.tmpdir"), "rush-hour-pdb"));
+    }
+
+    // A null directory keeps the tables in memory only.
+    public PatternDatabaseHeuristic(Path directory) {
+        this(directory, DEFAULT_MAX_PATTERN_SIZE);
+    }
+
+    public PatternDatabaseHeuristic(Path directory, int maxPatternSize) {
+        this.directory = directory;
+        this.maxPatternSize = maxPatternSize;
+    }
+
+    @Override
+    public int calculateH(Board board) {
+        LayoutPatterns current = last;
+        if (current == null || current.layout != board.getLayout()) {
+            current = new LayoutPatterns(board.getLayout(), patterns.computeIfAbsent(board.getLayout(), this::selectPatterns));
+            last = current;
+        }
+        int h = 0;
+        for (Projection projection : current.projections) {
+            h = Math.max(h, projection.distance(board));
+        }
+        return h;
+    }
+
+    private Projection[] selectPatterns(BoardLayout layout) {
+        int redCar = layout.getTargetIndex();
+        int exitRow = layout.getLane(redCar);
+        List<Integer> base = new ArrayList<>();
+        base.add(redCar);
+        List<Integer> crossing = new ArrayList<>();
+        List<Integer> holding = new ArrayList<>();
+        for (int index = 0; index < layout.getVehicleCount(); index++) {
+            if (index == redCar) {
+                continue;
+            }
+            if (!layout.isHorizontal(index)) {
+                crossing.add(index);
+            } else if (layout.getLane(index) == exitRow) {
+                base.add(index);
+            } else {
+                holding.add(index);
+            }
+        }
+        crossing.sort((a, b) -> Integer.compare(layout.getLane(b), layout.getLane(a)));
+        holding.sort(Comparator.comparingInt(index -> Math.abs(layout.getLane(index) - exitRow)));
+
+        List<List<Integer>> groups = new ArrayList<>();
+        List<Integer> group = new ArrayList<>(base);
+        for (int index : crossing) {
+            if (group.size() > base.size() && tableSize(layout, group) * (layout.maxPosition(index) + 1) > maxPatternSize) {
+                groups.add(group);
+                group = new ArrayList<>(base);
+            }
+            group.add(index);
+        }
+        groups.add(group);
+
+        // Horizontal vehicles closest to the exit row are what keeps the
+        // crossing vehicles in place, so spare room goes to them.
+        Projection[] projections = new Projection[groups.size()];
+        for (int i = 0; i < groups.size(); i++) {
+            List<Integer> pattern = groups.get(i);
+            for (int index : holding) {
+                if (tableSize(layout, pattern) * (layout.maxPosition(index) + 1) <= maxPatternSize) {
+                    pattern.add(index);
+                }
+            }
+            projections[i] = new Projection(layout, pattern, directory);
+        }
+        return projections;
+    }
+
+    private static long tableSize(BoardLayout layout, List<Integer> vehicles) {
+        long size = 1;
+        for (int index : vehicles) {
+            size *= layout.maxPosition(index) + 1;
+        }
+        return size;
+    }
+
+    private static class LayoutPatterns {
+        private final BoardLayout layout;
+        private final Projection[] projections;
+
+        LayoutPatterns(BoardLayout layout, Projection[] projections) {
+            this.layout = layout;
+            this.projections = projections;
+        }
+    }
+
+    // Maps boards of one layout onto one pattern database.
+    private static class Projection {
+        private final int[] vehicles;
+        private final PatternDatabase database;
+
+        // The red car becomes id 1 and the others are renumbered in lane
+        // order, so equally shaped patterns of different puzzles share a table.
+        Projection(BoardLayout layout, List<Integer> group, Path directory) {
+            List<Integer> others = new ArrayList<>(group.subList(1, group.size()));
+            others.sort(Comparator.<Integer>comparingInt(i -> layout.isHorizontal(i) ? 0 : 1)
+                    .thenComparingInt(layout::getLane)
+                    .thenComparingInt(layout::getLength));
+
+            vehicles = new int[group.size()];
+            vehicles[0] = group.get(0);
+            for (int i = 0; i < others.size(); i++) {
+                vehicles[i + 1] = others.get(i);
+            }
+
+            Map<Integer, Vehicle> pattern = new HashMap<>();
+            for (int i = 0; i < vehicles.length; i++) {
+                int index = vehicles[i];
+                pattern.put(Board.TARGET_VEHICLE_ID + i, new Vehicle(Board.TARGET_VEHICLE_ID + i,
+                        layout.getStartX(index, 0), layout.getStartY(index, 0),
+                        layout.getLength(index), layout.isHorizontal(index)));
+            }
+            database = PatternDatabase.load(new BoardLayout(pattern, layout.getBoardSize()), directory);
+        }
+
+        int distance(Board board) {
+            long positions = 0L;
+            for (int i = 0; i < vehicles.length; i++) {
+                positions = BoardLayout.withPosition(positions, i, board.getPosition(vehicles[i]));
+            }
+            return database.distance(positions);
+        }
+    }
+}
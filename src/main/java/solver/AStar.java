@@ -5,52 +5,89 @@ import heuristics.Heuristic;
 import java.util.*;
 
 public class AStar {
-    private IndexedPriorityQueue<Node> openQueue;
-    private Set<Board> closedSet;
+    private OpenList<Node> openQueue;
+    private LongHashSet closedSet;
+    private int[] moves;
     private int nodesExpanded;
+    private boolean budgetExhausted;
 
     public AStar() {
-        openQueue = new IndexedPriorityQueue<>(Comparator.comparingInt(Node::getF));
-        closedSet = new HashSet<>();
+        this(new IndexedPriorityQueue<>(Comparator.comparingInt(Node::getF)));
+    }
+
+    public AStar(OpenList<Node> openQueue) {
+        this.openQueue = openQueue;
+        closedSet = new LongHashSet();
+        moves = new int[0];
         nodesExpanded = 0;
     }
 
     public List<Board> solve(Board initialBoard, Heuristic heuristic) {
-        int h = heuristic.calculateH(initialBoard);
-        Node root = new Node(initialBoard, null, 0, h);
+        return solve(initialBoard, heuristic, SearchBudget.UNLIMITED);
+    }
+
+    // Returns null when there is no solution or the budget ran out first
+    // (see isBudgetExhausted).
+    public List<Board> solve(Board initialBoard, Heuristic heuristic, SearchBudget budget) {
+        return search(initialBoard, heuristic, budget).getSolutionPath();
+    }
+
+    // Resets the previous search, so one instance can be reused for many
+    // boards while keeping its buffers.
+    public SearchResult search(Board initialBoard, Heuristic heuristic, SearchBudget budget) {
+        openQueue.clear();
+        closedSet.clear();
+        nodesExpanded = 0;
+        budgetExhausted = false;
+        long startTime = System.nanoTime();
+        if (moves.length < initialBoard.getLayout().getMaxMoves()) {
+            moves = new int[initialBoard.getLayout().getMaxMoves()];
+        }
+
+        Node root = new Node(initialBoard, null, 0, 0);
+        root.evaluate(heuristic);
         openQueue.add(root);
 
         while (!openQueue.isEmpty()) {
+            if (budget.isExhausted(nodesExpanded, openQueue.size() + closedSet.size(), startTime)) {
+                budgetExhausted = true;
+                return result(SearchResult.Status.BUDGET_EXHAUSTED, null, startTime);
+            }
             Node current = openQueue.poll();
             nodesExpanded ++;
 
             if (current.getBoard().isGoal()) {
-                return constructPath(current);
+                return result(SearchResult.Status.SOLVED, constructPath(current), startTime);
             }
 
-            closedSet.add(current.getBoard());
+            closedSet.add(current.getBoard().getStateKey());
 
-            for (Node successor : current.expand(heuristic)) {
-                Board successorBoard = successor.getBoard();
-
-                if (closedSet.contains(successorBoard)) {
+            // Successors are only built once their key is known to be off the
+            // closed set, and h is only computed for states new to the open list.
+            Board board = current.getBoard();
+            int count = board.generateMoves(moves);
+            for (int i = 0; i < count; i++) {
+                if (closedSet.contains(board.childStateKey(moves[i]))) {
                     continue;
                 }
 
-                if (!openQueue.contains(successor)) {
+                Node successor = current.child(moves[i]);
+                Node existingNode = openQueue.getElement(successor);
+                if (existingNode == null) {
+                    successor.evaluate(heuristic, moves[i]);
                     openQueue.add(successor);
-                } else {
-                    Node existingNode = openQueue.getElement(successor);
-                    if (successor.getG() < existingNode.getG()) {
-                        existingNode.setG(successor.getG());
-                        existingNode.setH(successor.getH());
-                        existingNode.setParent(current);
-                        openQueue.update(existingNode);
-                    }
+                } else if (successor.getG() < existingNode.getG()) {
+                    existingNode.setG(successor.getG());
+                    existingNode.setParent(current);
+                    openQueue.update(existingNode);
                 }
             }
         }
-        return null;
+        return result(SearchResult.Status.UNSOLVABLE, null, startTime);
+    }
+
+    private SearchResult result(SearchResult.Status status, List<Board> path, long startTime) {
+        return new SearchResult(status, path, nodesExpanded, openQueue.size() + closedSet.size(), System.nanoTime() - startTime);
     }
 
     private List<Board> constructPath(Node node) {
@@ -65,4 +102,8 @@ public class AStar {
     public int getNodesExpanded(){
         return nodesExpanded;
     }
+
+    public boolean isBudgetExhausted(){
+        return budgetExhausted;
+    }
 }
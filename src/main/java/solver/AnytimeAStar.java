@@ -0,0 +1,271 @@
+package solver;
+
+import heuristics.Heuristic;
+
+import java.util.*;
+
+// Anytime repairing A* (ARA*). A first solution comes from a weighted search
+// with a large weight; the weight is then lowered step by step, and each
+// pass reuses the nodes of the previous ones instead of starting over. Nodes
+// whose cost improves after they were expanded in the current pass are kept
+// aside and rejoin the open list for the next pass. Every improvement is
+// recorded with a bound on how far it can be from the optimum, which reaches
+// 1 once it is proven optimal. A budget stops the search early with the
+// best solution found so far.
+public class AnytimeAStar {
+    public static final double DEFAULT_INITIAL_WEIGHT = 3.0;
+    public static final double DEFAULT_WEIGHT_STEP = 0.5;
+
+    private final double initialWeight;
+    private final double weightStep;
+    private final SearchBudget budget;
+
+    private final Map<Node, Node> seen = new HashMap<>();
+    // Best g of every state in seen, so successors are checked by key before
+    // a node is built for them.
+    private final StateTable bestG = new StateTable();
+    private final LongHashSet closedSet = new LongHashSet();
+    private final List<Node> inconsistent = new ArrayList<>();
+    private final List<Solution> solutions = new ArrayList<>();
+    private OpenList<Node> openQueue;
+    private int[] moves = new int[0];
+    private double weight;
+    private Node incumbent;
+    private int nodesExpanded;
+    private long startTime;
+    private boolean budgetExhausted;
+
+    public AnytimeAStar() {
+        this(DEFAULT_INITIAL_WEIGHT, DEFAULT_WEIGHT_STEP, SearchBudget.UNLIMITED);
+    }
+
+    public AnytimeAStar(SearchBudget budget) {
+        this(DEFAULT_INITIAL_WEIGHT, DEFAULT_WEIGHT_STEP, budget);
+    }
+
+    public AnytimeAStar(double initialWeight, double weightStep, SearchBudget budget) {
+        if (initialWeight < 1.0 || weightStep <= 0.0) {
+            throw new IllegalArgumentException("Invalid weights: initial=" + initialWeight + ", step=" + weightStep);
+        }
+        this.initialWeight = initialWeight;
+        this.weightStep = weightStep;
+        this.budget = budget;
+    }
+
+    // The best solution found, or null if there is none or the budget ran
+    // out before the first one.
+    public List<Board> solve(Board initialBoard, Heuristic heuristic) {
+        seen.clear();
+        bestG.clear();
+        closedSet.clear();
+        inconsistent.clear();
+        solutions.clear();
+        incumbent = null;
+        nodesExpanded = 0;
+        budgetExhausted = false;
+        startTime = System.nanoTime();
+        if (moves.length < initialBoard.getLayout().getMaxMoves()) {
+            moves = new int[initialBoard.getLayout().getMaxMoves()];
+        }
+
+        Node root = new Node(initialBoard, null, 0, 0);
+        root.evaluate(heuristic);
+        seen.put(root, root);
+        bestG.put(initialBoard.getStateKey(), StateTable.NO_PARENT, 0);
+        if (initialBoard.isGoal()) {
+            incumbent = root;
+        }
+
+        weight = initialWeight;
+        List<Node> frontier = Collections.singletonList(root);
+        while (true) {
+            openQueue = new IndexedPriorityQueue<>(WeightedAStar.priority(weight));
+            for (Node node : frontier) {
+                openQueue.add(node);
+            }
+            closedSet.clear();
+            inconsistent.clear();
+
+            improvePath(heuristic);
+            frontier = collectFrontier();
+            double bound = record(frontier);
+            if (budgetExhausted || bound <= 1.0 || weight <= 1.0) {
+                break;
+            }
+            weight = Math.max(1.0, weight - weightStep);
+        }
+        openQueue = null;
+        return incumbent == null ? null : constructPath(incumbent);
+    }
+
+    // Expands until the incumbent is no worse than every open node under the
+    // current weight.
+    private void improvePath(Heuristic heuristic) {
+        while (!openQueue.isEmpty()) {
+            Node best = openQueue.peek();
+            if (incumbent != null && incumbent.getG() <= best.getG() + weight * best.getH()) {
+                return;
+            }
+            if (budget.isExhausted(nodesExpanded, bestG.size(), startTime)) {
+                budgetExhausted = true;
+                return;
+            }
+            Node current = openQueue.poll();
+            nodesExpanded++;
+            closedSet.add(current.getBoard().getStateKey());
+            if (current.getBoard().isGoal()) {
+                continue;
+            }
+
+            // A node is only built for states that are new or reached more
+            // cheaply than before.
+            Board board = current.getBoard();
+            int count = board.generateMoves(moves);
+            int g = current.getG() + 1;
+            for (int i = 0; i < count; i++) {
+                long key = board.childStateKey(moves[i]);
+                int knownG = bestG.depthOf(key);
+                if (knownG != -1 && knownG <= g) {
+                    continue;
+                }
+                bestG.put(key, StateTable.NO_PARENT, g);
+                Node successor = current.child(moves[i]);
+                Node known = knownG == -1 ? null : seen.get(successor);
+                if (known == null) {
+                    successor.evaluate(heuristic, moves[i]);
+                    seen.put(successor, successor);
+                    openQueue.add(successor);
+                    offer(successor);
+                } else {
+                    known.setG(g);
+                    known.setParent(current);
+                    offer(known);
+                    if (closedSet.contains(known.getBoard().getStateKey())) {
+                        inconsistent.add(known);
+                    } else if (openQueue.contains(known)) {
+                        openQueue.update(known);
+                    } else {
+                        openQueue.add(known);
+                    }
+                }
+            }
+        }
+    }
+
+    // Goals become the incumbent as soon as they are generated.
+    private void offer(Node node) {
+        if (node.getBoard().isGoal() && (incumbent == null || node.getG() <= incumbent.getG())) {
+            incumbent = node;
+        }
+    }
+
+    // Open and inconsistent nodes together; these seed the next pass.
+    private List<Node> collectFrontier() {
+        List<Node> frontier = new ArrayList<>(openQueue.size() + inconsistent.size());
+        while (!openQueue.isEmpty()) {
+            frontier.add(openQueue.poll());
+        }
+        Set<Node> queued = new HashSet<>(frontier);
+        for (Node node : inconsistent) {
+            if (queued.add(node)) {
+                frontier.add(node);
+            }
+        }
+        return frontier;
+    }
+
+    // Every optimal path still passes through the frontier, so its smallest
+    // g + h bounds the optimum from below. Returns the bound of the incumbent.
+    private double record(List<Node> frontier) {
+        if (incumbent == null) {
+            return Double.POSITIVE_INFINITY;
+        }
+        int lowerBound = Integer.MAX_VALUE;
+        for (Node node : frontier) {
+            lowerBound = Math.min(lowerBound, node.getF());
+        }
+        double bound;
+        if (lowerBound >= incumbent.getG()) {
+            bound = 1.0;
+        } else if (lowerBound <= 0) {
+            bound = weight;
+        } else {
+            bound = Math.min(weight, (double) incumbent.getG() / lowerBound);
+        }
+
+        Solution last = solutions.isEmpty() ? null : solutions.get(solutions.size() - 1);
+        if (last == null || incumbent.getG() < last.getCost() || bound < last.getBound()) {
+            solutions.add(new Solution(constructPath(incumbent), bound, nodesExpanded, System.nanoTime() - startTime));
+        }
+        return bound;
+    }
+
+    private List<Board> constructPath(Node node) {
+        List<Board> path = new ArrayList<>();
+        while (node != null) {
+            path.add(0, node.getBoard());
+            node = node.getParent();
+        }
+        return path;
+    }
+
+    // The solutions of the last search in the order they were found, each
+    // cheaper or better bounded than the one before.
+    public List<Solution> getSolutions() {
+        return Collections.unmodifiableList(solutions);
+    }
+
+    // Bound of the returned solution, or infinity if there is none.
+    public double getSuboptimalityBound() {
+        return solutions.isEmpty() ? Double.POSITIVE_INFINITY : solutions.get(solutions.size() - 1).getBound();
+    }
+
+    public int getNodesExpanded() {
+        return nodesExpanded;
+    }
+
+    public boolean isBudgetExhausted() {
+        return budgetExhausted;
+    }
+
+    public static class Solution {
+        private final List<Board> path;
+        private final double bound;
+        private final int nodesExpanded;
+        private final long elapsedNanos;
+
+        Solution(List<Board> path, double bound, int nodesExpanded, long elapsedNanos) {
+            this.path = path;
+            this.bound = bound;
+            this.nodesExpanded = nodesExpanded;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public List<Board> getPath() {
+            return path;
+        }
+
+        // Number of moves.
+        public int getCost() {
+            return path.size() - 1;
+        }
+
+        // The optimum is at least getCost() / getBound() moves.
+        public double getBound() {
+            return bound;
+        }
+
+        public int getNodesExpanded() {
+            return nodesExpanded;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d moves (bound %.2f, %d nodes, %dms)", getCost(), bound, nodesExpanded, elapsedNanos / 1_000_000);
+        }
+    }
+}
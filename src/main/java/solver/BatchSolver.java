@@ -0,0 +1,101 @@
+package solver;
+
+import heuristics.Heuristic;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+// Solves many boards on an executor. Solves borrow an AStar and a heuristic
+// instance from a pool of one pair per unit of parallelism, so the solvers
+// are reused between boards (their open list and closed set keep their
+// capacity) whatever threads the executor runs tasks on. With virtual
+// threads, which are never reused, the pool also caps how many solves run
+// at once.
+public class BatchSolver {
+    private final ExecutorService executor;
+    private final BlockingQueue<Worker> workers;
+
+    // One worker per thread of a fork-join pool, otherwise per processor.
+    public BatchSolver(ExecutorService executor, Supplier<Heuristic> heuristicSupplier) {
+        this(executor, executor instanceof ForkJoinPool pool
+                ? pool.getParallelism() : Runtime.getRuntime().availableProcessors(), heuristicSupplier);
+    }
+
+    public BatchSolver(ExecutorService executor, int parallelism, Supplier<Heuristic> heuristicSupplier) {
+        this.executor = executor;
+        this.workers = new ArrayBlockingQueue<>(parallelism);
+        for (int i = 0; i < parallelism; i++) {
+            workers.add(new Worker(new AStar(), heuristicSupplier.get()));
+        }
+    }
+
+    public static ExecutorService forkJoinPool(int parallelism) {
+        return new ForkJoinPool(parallelism);
+    }
+
+    public static ExecutorService virtualThreads() {
+        return Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    // Results are returned in the order of the input boards.
+    public List<SolveStats> solveAll(List<Board> boards) {
+        List<Future<SolveStats>> futures = new ArrayList<>();
+        for (Board board : boards) {
+            futures.add(executor.submit(() -> solve(board)));
+        }
+
+        List<SolveStats> results = new ArrayList<>();
+        for (Future<SolveStats> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Batch solve interrupted", e);
+            } catch (ExecutionException e) {
+                throw new RuntimeException("Failed to solve puzzle", e.getCause());
+            }
+        }
+        return results;
+    }
+
+    private SolveStats solve(Board board) throws InterruptedException {
+        Worker worker = workers.take();
+        try {
+            AStar solver = worker.solver;
+
+            long startTime = System.currentTimeMillis();
+            long allocatedBefore = allocatedBytes();
+            List<Board> solutionPath = solver.solve(board, worker.heuristic);
+            long allocatedAfter = allocatedBytes();
+            long endTime = System.currentTimeMillis();
+
+            return new SolveStats(board.getVehicles().size(), solver.getNodesExpanded(), solutionPath,
+                    endTime - startTime, Math.max(0, allocatedAfter - allocatedBefore));
+        } finally {
+            workers.add(worker);
+        }
+    }
+
+    // Heap deltas are meaningless with several solves running at once, so the
+    // memory figure is what the worker thread allocated during the solve.
+    private static long allocatedBytes() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean) {
+            long bytes = bean.getCurrentThreadAllocatedBytes();
+            return Math.max(bytes, 0);
+        }
+        return 0;
+    }
+
+    private static class Worker {
+        private final AStar solver;
+        private final Heuristic heuristic;
+
+        Worker(AStar solver, Heuristic heuristic) {
+            this.solver = solver;
+            this.heuristic = heuristic;
+        }
+    }
+}
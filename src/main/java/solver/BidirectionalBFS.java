@@ -0,0 +1,141 @@
+package solver;
+
+import java.util.*;
+
+// Breadth-first search from the start board and from every goal state of its
+// layout at the same time. Each step expands one whole level of the smaller
+// frontier; once the two searches meet, the level is finished and the
+// shortest start-meeting-goal path is returned. Moves are reversible, so the
+// backward search uses the ordinary successor function.
+public class BidirectionalBFS {
+    public static final int DEFAULT_GOAL_LIMIT = 1 << 20;
+
+    private static final long NO_MEETING = StateTable.NO_PARENT;
+
+    private final int goalLimit;
+    private int nodesExpanded;
+    private int statesVisited;
+
+    public BidirectionalBFS() {
+        this(DEFAULT_GOAL_LIMIT);
+    }
+
+    // Layouts with more goal states than goalLimit are searched forward only.
+    public BidirectionalBFS(int goalLimit) {
+        this.goalLimit = goalLimit;
+        this.nodesExpanded = 0;
+        this.statesVisited = 0;
+    }
+
+    public List<Board> solve(Board initialBoard) {
+        nodesExpanded = 0;
+        statesVisited = 0;
+        BoardLayout layout = initialBoard.getLayout();
+        if (initialBoard.isGoal()) {
+            return new ArrayList<>(Collections.singletonList(initialBoard.clone()));
+        }
+
+        StateTable forward = new StateTable();
+        StateTable backward = new StateTable();
+        LongList forwardFrontier = new LongList();
+        LongList backwardFrontier = new LongList();
+
+        forward.putIfAbsent(initialBoard.getStateKey(), StateTable.NO_PARENT, 0);
+        forwardFrontier.add(initialBoard.getStateKey());
+
+        long[] goals = GoalStates.enumerate(layout, goalLimit);
+        boolean bidirectional = goals != null;
+        if (bidirectional) {
+            for (long goal : goals) {
+                backward.putIfAbsent(goal, StateTable.NO_PARENT, 0);
+                backwardFrontier.add(goal);
+            }
+        }
+
+        int forwardDepth = 0;
+        int backwardDepth = 0;
+        try {
+            while (!forwardFrontier.isEmpty() && (!bidirectional || !backwardFrontier.isEmpty())) {
+                boolean expandForward = !bidirectional || forwardFrontier.size() <= backwardFrontier.size();
+                long meeting;
+                if (expandForward) {
+                    meeting = expandLevel(layout, forwardFrontier, forward, forwardDepth, backward, !bidirectional);
+                    forwardDepth++;
+                } else {
+                    meeting = expandLevel(layout, backwardFrontier, backward, backwardDepth, forward, false);
+                    backwardDepth++;
+                }
+                if (meeting != NO_MEETING) {
+                    return constructPath(layout, forward, backward, meeting);
+                }
+            }
+            return null;
+        } finally {
+            statesVisited = forward.size() + backward.size();
+        }
+    }
+
+    // Replaces the frontier by its next level and returns the cheapest state
+    // where the two searches met on it, or NO_MEETING. Without a backward
+    // search, checkGoal makes every goal state count as a meeting.
+    private long expandLevel(BoardLayout layout, LongList frontier, StateTable own, int depth,
+                             StateTable other, boolean checkGoal) {
+        LongList next = new LongList(frontier.size() * 2);
+        int[] moves = new int[layout.getMaxMoves()];
+        long bestMeeting = NO_MEETING;
+        int bestCost = Integer.MAX_VALUE;
+
+        for (int i = 0; i < frontier.size(); i++) {
+            long key = frontier.get(i);
+            nodesExpanded++;
+            Board board = new Board(layout, key);
+            int count = board.generateMoves(moves);
+            for (int m = 0; m < count; m++) {
+                long successorKey = board.childStateKey(moves[m]);
+                if (!own.putIfAbsent(successorKey, key, depth + 1)) {
+                    continue;
+                }
+                next.add(successorKey);
+
+                int otherDepth = other.depthOf(successorKey);
+                if (otherDepth == -1 && checkGoal && isGoal(layout, successorKey)) {
+                    otherDepth = 0;
+                }
+                if (otherDepth != -1 && depth + 1 + otherDepth < bestCost) {
+                    bestCost = depth + 1 + otherDepth;
+                    bestMeeting = successorKey;
+                }
+            }
+        }
+
+        frontier.clear();
+        for (int i = 0; i < next.size(); i++) {
+            frontier.add(next.get(i));
+        }
+        return bestMeeting;
+    }
+
+    private static boolean isGoal(BoardLayout layout, long key) {
+        int target = layout.getTargetIndex();
+        return BoardLayout.position(key, target) == layout.maxPosition(target);
+    }
+
+    private List<Board> constructPath(BoardLayout layout, StateTable forward, StateTable backward, long meeting) {
+        LinkedList<Board> path = new LinkedList<>();
+        for (long key = meeting; key != StateTable.NO_PARENT; key = forward.parentOf(key)) {
+            path.addFirst(new Board(layout, key));
+        }
+        for (long key = backward.parentOf(meeting); key != StateTable.NO_PARENT; key = backward.parentOf(key)) {
+            path.addLast(new Board(layout, key));
+        }
+        return new ArrayList<>(path);
+    }
+
+    public int getNodesExpanded() {
+        return nodesExpanded;
+    }
+
+    public int getStatesVisited() {
+        return statesVisited;
+    }
+}
@@ -4,75 +4,131 @@ import java.util.*;
 
 public class Board implements Comparable<Board> {
     public static final int TARGET_VEHICLE_ID = 1;
-    private int boardSize;
-    private int[][] grid;
+    private final BoardLayout layout;
+    private long positions;
+    private long occupancy;
+    private long zobrist;
     private Map<Integer, Vehicle> vehicles;
+    private int[][] grid;
 
     public Board(Map<Integer, Vehicle> vehicles, int boardSize) {
-        this.vehicles = vehicles;
-        this.boardSize = boardSize;
-        grid = new int[boardSize][boardSize];
-        initializeGrid();
+        this.layout = new BoardLayout(vehicles, boardSize);
+        this.positions = layout.encode(vehicles);
+        this.occupancy = layout.occupancy(positions);
+        this.zobrist = layout.zobrist(positions);
     }
 
-    private void initializeGrid(){
-        for (Vehicle v : vehicles.values()){
-            manipulateVehicleOnGrid(v, true);
-        }
+    Board(BoardLayout layout, long positions) {
+        this(layout, positions, layout.occupancy(positions), layout.zobrist(positions));
     }
 
-    public Map<Integer, Vehicle> getVehicles() {
-        return vehicles;
+    private Board(BoardLayout layout, long positions, long occupancy, long zobrist) {
+        this.layout = layout;
+        this.positions = positions;
+        this.occupancy = occupancy;
+        this.zobrist = zobrist;
     }
 
-    public void manipulateVehicleOnGrid(Vehicle v, boolean place){
-        int x = v.getStartX();
-        int y = v.getStartY();
-        for(int i = 0; i < v.getLength(); i++){
-            if(place){
-                grid[y][x] = v.getId();
-            }else{
-                grid[y][x] = 0;
-            }
-            if (v.getIsHorizontal()) {
-                x++;
-            } else {
-                y++;
+    // Built on demand for callers that still work with vehicle objects; the
+    // returned vehicles are snapshots and are refreshed after every move.
+    public Map<Integer, Vehicle> getVehicles() {
+        if (vehicles == null) {
+            Map<Integer, Vehicle> map = new HashMap<>();
+            for (int index = 0; index < layout.getVehicleCount(); index++) {
+                map.put(layout.getId(index), layout.toVehicle(index, getPosition(index)));
             }
+            vehicles = map;
         }
+        return vehicles;
     }
 
     public boolean isGoal(){
-        Vehicle v = getRedCar();
-        return v.getStartX() + v.getLength() == boardSize;
+        int target = layout.getTargetIndex();
+        return getPosition(target) == layout.maxPosition(target);
     }
 
     public List<Board> expand(){
-        List<Board> successors = new ArrayList<>();
-
-        for(Vehicle v : vehicles.values()){
-            successors.addAll(generateMoves(v, 1));
-            successors.addAll(generateMoves(v, -1));
+        int[] moves = new int[layout.getMaxMoves()];
+        int count = generateMoves(moves);
+        List<Board> successors = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            successors.add(applyMove(moves[i]));
         }
         return successors;
     }
 
     public List<Board> generateMoves(Vehicle v, int direction){
+        int index = layout.indexOf(v.getId());
+        int position = getPosition(index);
+        int limit = direction > 0 ? maxReachable(index) : minReachable(index);
         List<Board> moves = new ArrayList<>();
-        int steps = 1;
-
-        while (true) {
-            if (canMove(v, direction, steps)) {
-                Board newBoard = this.clone();
-                newBoard.moveVehicle(v.getId(), direction, steps);
-                moves.add(newBoard);
-                steps++;
-            } else {
-                break;
+        for (int target = position + direction; direction * (limit - target) >= 0; target += direction) {
+            moves.add(applyMove(Move.of(index, position, target)));
+        }
+        return moves;
+    }
+
+    // Writes every legal move into the buffer (at least layout.getMaxMoves()
+    // long) and returns how many there are. For each vehicle the reachable
+    // range comes from one table lookup on its lane's occupancy bits.
+    public int generateMoves(int[] moves){
+        int count = 0;
+        for (int index = 0; index < layout.getVehicleCount(); index++) {
+            int position = getPosition(index);
+            int max = maxReachable(index);
+            for (int target = position + 1; target <= max; target++) {
+                moves[count++] = Move.of(index, position, target);
+            }
+            int min = minReachable(index);
+            for (int target = position - 1; target >= min; target--) {
+                moves[count++] = Move.of(index, position, target);
             }
         }
+        return count;
+    }
 
-        return moves;
+    private int laneWithoutVehicle(int index, int position) {
+        int lane = (int) Long.compress(occupancy, layout.getLaneMask(index));
+        return lane & ~(((1 << layout.getLength(index)) - 1) << position);
+    }
+
+    private int minReachable(int index) {
+        int position = getPosition(index);
+        return layout.getMoveTable().minPosition(layout.getLength(index), position, laneWithoutVehicle(index, position));
+    }
+
+    private int maxReachable(int index) {
+        int position = getPosition(index);
+        return layout.getMoveTable().maxPosition(layout.getLength(index), position, laneWithoutVehicle(index, position));
+    }
+
+    public Board applyMove(int move){
+        int index = Move.vehicleIndex(move);
+        return new Board(layout, childStateKey(move),
+                (occupancy & ~layout.cellMask(index, Move.from(move))) | layout.cellMask(index, Move.to(move)),
+                childZobristKey(move));
+    }
+
+    public long childStateKey(int move){
+        return BoardLayout.withPosition(positions, Move.vehicleIndex(move), Move.to(move));
+    }
+
+    public long childZobristKey(int move){
+        int index = Move.vehicleIndex(move);
+        return zobrist ^ layout.zobristKey(index, Move.from(move)) ^ layout.zobristKey(index, Move.to(move));
+    }
+
+    public void makeMove(int move){
+        int index = Move.vehicleIndex(move);
+        occupancy = (occupancy & ~layout.cellMask(index, Move.from(move))) | layout.cellMask(index, Move.to(move));
+        zobrist = childZobristKey(move);
+        positions = childStateKey(move);
+        vehicles = null;
+        grid = null;
+    }
+
+    public void unmakeMove(int move){
+        makeMove(Move.reverse(move));
     }
 //public List<Board> generateMoves(Vehicle v, int direction) {
 //    List<Board> moves = new ArrayList<>();
@@ -94,84 +150,119 @@ public class Board implements Comparable<Board> {
 
 
     public boolean canMove(Vehicle v, int direction, int steps){
-        int x = v.getStartX();
-        int y = v.getStartY();
-
-        int checkX = x;
-        int checkY = y;
-
-        for (int i = 1; i <= steps; i++) {
-            if (v.getIsHorizontal()) {
-                if (direction == 1) {
-                    checkX = x + v.getLength() - 1 + i;
-                } else {
-                    checkX = x - i;
-                }
-                checkY = y;
-            } else {
-                if (direction == 1) {
-                    checkY = y + v.getLength() - 1 + i;
-                } else {
-                    checkY = y - i;
-                }
-                checkX = x;
-            }
+        return canMove(v.getId(), direction, steps);
+    }
 
-            if (!isValidMove(checkX, checkY)) {
-                return false;
-            }
-        }
+    public boolean canMove(int id, int direction, int steps){
+        int index = layout.indexOf(id);
+        return canReach(index, getPosition(index) + direction * steps);
+    }
 
-        return true;
+    // True when the vehicle at the layout index can slide to the position in one move.
+    public boolean canReach(int index, int position){
+        return position >= minReachable(index) && position <= maxReachable(index);
     }
 
 
     public void moveVehicle(int id, int direction, int steps){
-        Vehicle v = vehicles.get(id);
-        manipulateVehicleOnGrid(v, false);
-
-        if (v.getIsHorizontal()) {
-            v.setStartX(v.getStartX() + direction * steps);
-        } else {
-            v.setStartY(v.getStartY() + direction * steps);
-        }
+        int index = layout.indexOf(id);
+        int position = getPosition(index);
+        makeMove(Move.of(index, position, position + direction * steps));
+    }
 
-        manipulateVehicleOnGrid(v, true);
+    public boolean isCellEmpty(int x, int y){
+        return (occupancy & layout.cellBit(x, y)) == 0;
     }
 
-    private boolean isValidMove(int x, int y){
-        return x >= 0 && y >= 0 && x < boardSize && y < boardSize
-                && isCellEmpty(x, y);
+    // Returns the id of the vehicle covering the cell, or 0 when it is empty.
+    public int getVehicleIdAt(int x, int y){
+        int index = getVehicleIndexAt(x, y);
+        return index == -1 ? 0 : layout.getId(index);
     }
 
-    public boolean isCellEmpty(int x, int y){
-        return grid[y][x] == 0;
+    // Returns the layout index of the vehicle covering the cell, or -1 when it is empty.
+    public int getVehicleIndexAt(int x, int y){
+        if (isCellEmpty(x, y)) {
+            return -1;
+        }
+        for (int index : layout.getRowVehicles(y)) {
+            int position = getPosition(index);
+            if (x >= position && x < position + layout.getLength(index)) {
+                return index;
+            }
+        }
+        for (int index : layout.getColumnVehicles(x)) {
+            int position = getPosition(index);
+            if (y >= position && y < position + layout.getLength(index)) {
+                return index;
+            }
+        }
+        return -1;
     }
+
     public Vehicle getRedCar(){
-        return vehicles.get(TARGET_VEHICLE_ID);
+        return getVehicleById(TARGET_VEHICLE_ID);
     }
+
+    // Built on demand from the bitboard state; not used by the solver itself.
     public int[][] getGrid(){
+        if (grid == null) {
+            int boardSize = layout.getBoardSize();
+            int[][] cells = new int[boardSize][boardSize];
+            for (int index = 0; index < layout.getVehicleCount(); index++) {
+                Vehicle v = layout.toVehicle(index, getPosition(index));
+                for (int[] cell : v.occupiedCells()) {
+                    cells[cell[0]][cell[1]] = v.getId();
+                }
+            }
+            grid = cells;
+        }
         return grid;
     }
+
     public int getBoardSize() {
-        return boardSize;
+        return layout.getBoardSize();
     }
 
-    @Override
-    public Board clone(){
-        Map<Integer, Vehicle> clonedVehicles = new HashMap<>();
-        for(Map.Entry<Integer, Vehicle> entry : vehicles.entrySet()){
-            clonedVehicles.put(entry.getKey(), entry.getValue().clone());
-        }
-        Board newBoard = new Board(clonedVehicles, boardSize);
+    public BoardLayout getLayout() {
+        return layout;
+    }
+
+    // Packed vehicle positions; unique among the states of one layout.
+    public long getStateKey() {
+        return positions;
+    }
+
+    // Incrementally maintained Zobrist hash of the vehicle placement.
+    public long getZobristKey() {
+        return zobrist;
+    }
+
+    public long getOccupancy() {
+        return occupancy;
+    }
 
-        for(int y = 0; y < boardSize; y++){
-            newBoard.grid[y] = this.grid[y].clone();
+    // Random generators can stack vehicles on top of each other.
+    public boolean hasOverlappingVehicles() {
+        int cells = 0;
+        for (int index = 0; index < layout.getVehicleCount(); index++) {
+            cells += layout.getLength(index);
         }
-        return newBoard;
+        return cells != Long.bitCount(occupancy);
+    }
+
+    public int getPosition(int index) {
+        return BoardLayout.position(positions, index);
+    }
+
+    @Override
+    public Board clone(){
+        return new Board(layout, positions, occupancy, zobrist);
     }
 
     public void printGrid() {
+        int boardSize = getBoardSize();
+        int[][] grid = getGrid();
         System.out.print(" x ");
         for (int x = 0; x < boardSize; x++) {
             System.out.print(x + " ");
@@ -213,12 +304,14 @@ public class Board implements Comparable<Board> {
         if (this == obj) return true;
         if (!(obj instanceof Board)) return false;
         Board other = (Board) obj;
-        return Arrays.deepEquals(this.grid, other.grid);
+        return this.zobrist == other.zobrist
+                && this.positions == other.positions
+                && (this.layout == other.layout || this.layout.equals(other.layout));
     }
 
     @Override
     public int hashCode() {
-        return Arrays.deepHashCode(grid);
+        return Long.hashCode(zobrist);
     }
 
 
@@ -237,6 +330,9 @@ public class Board implements Comparable<Board> {
 
     @Override
     public int compareTo(Board other) {
+        if (this.layout == other.layout) {
+            return Long.compare(this.positions, other.positions);
+        }
         String thisState = this.serializeBoardState();
         String otherState = other.serializeBoardState();
 
@@ -244,6 +340,8 @@ public class Board implements Comparable<Board> {
     }
 
     public String serializeBoardState() {
+        int boardSize = getBoardSize();
+        int[][] grid = getGrid();
         StringBuilder sb = new StringBuilder(boardSize * boardSize);
         for (int y = 0; y < boardSize; y++) {
             for (int x = 0; x < boardSize; x++) {
@@ -254,7 +352,11 @@ public class Board implements Comparable<Board> {
     }
 
     public Vehicle getVehicleById(int id){
-        return vehicles.get(id);
+        if (!layout.contains(id)) {
+            return null;
+        }
+        int index = layout.indexOf(id);
+        return layout.toVehicle(index, getPosition(index));
     }
 
 
@@ -0,0 +1,290 @@
+package solver;
+
+import java.util.*;
+
+// Static vehicle metadata shared by every state of one puzzle. A state is a
+// single long holding one 3-bit position per vehicle (x for horizontal
+// vehicles, y for vertical ones) and the occupancy is a 64-bit bitboard.
+public final class BoardLayout {
+    public static final int MAX_BOARD_SIZE = 8;
+    public static final int BITS_PER_VEHICLE = 3;
+    public static final int MAX_VEHICLES = Long.SIZE / BITS_PER_VEHICLE;
+    private static final long POSITION_MASK = (1L << BITS_PER_VEHICLE) - 1;
+
+    private final int boardSize;
+    private final int[] ids;
+    private final int[] lengths;
+    private final boolean[] horizontal;
+    private final int[] lanes;
+    private final int[] indexById;
+    private final long[][] cellMasks;
+    private final long[][] zobristKeys;
+    private final long[] laneMasks;
+    private final MoveTable moveTable;
+    private final int maxMoves;
+    private final int[][] rowVehicles;
+    private final int[][] columnVehicles;
+    private final int targetIndex;
+
+    public BoardLayout(Map<Integer, Vehicle> vehicles, int boardSize) {
+        if (boardSize < 1 || boardSize > MAX_BOARD_SIZE) {
+            throw new IllegalArgumentException("Board size must be between 1 and " + MAX_BOARD_SIZE + ": " + boardSize);
+        }
+        if (vehicles.size() > MAX_VEHICLES) {
+            throw new IllegalArgumentException("At most " + MAX_VEHICLES + " vehicles are supported: " + vehicles.size());
+        }
+        this.boardSize = boardSize;
+
+        int count = vehicles.size();
+        ids = new int[count];
+        lengths = new int[count];
+        horizontal = new boolean[count];
+        lanes = new int[count];
+        int maxId = 0;
+        for (int id : vehicles.keySet()) {
+            if (id < 0) {
+                throw new IllegalArgumentException("Vehicle ids must not be negative: " + id);
+            }
+            maxId = Math.max(maxId, id);
+        }
+        indexById = new int[Math.max(maxId, Board.TARGET_VEHICLE_ID) + 1];
+        Arrays.fill(indexById, -1);
+        cellMasks = new long[count][];
+        zobristKeys = new long[count][];
+        laneMasks = new long[count];
+
+        int index = 0;
+        for (Vehicle v : new TreeMap<>(vehicles).values()) {
+            ids[index] = v.getId();
+            lengths[index] = v.getLength();
+            horizontal[index] = v.getIsHorizontal();
+            lanes[index] = v.getIsHorizontal() ? v.getStartY() : v.getStartX();
+            if (lanes[index] < 0 || lanes[index] >= boardSize || v.getLength() > boardSize) {
+                throw new IllegalArgumentException("Vehicle " + v.getId() + " does not fit on the board");
+            }
+            cellMasks[index] = buildCellMasks(index);
+            zobristKeys[index] = buildZobristKeys(index);
+            for (long mask : cellMasks[index]) {
+                laneMasks[index] |= mask;
+            }
+            indexById[v.getId()] = index;
+            index++;
+        }
+
+        rowVehicles = buildLaneVehicles(true);
+        columnVehicles = buildLaneVehicles(false);
+        targetIndex = indexById[Board.TARGET_VEHICLE_ID];
+        moveTable = MoveTable.forSize(boardSize);
+
+        int moves = 0;
+        for (int i = 0; i < count; i++) {
+            moves += maxPosition(i);
+        }
+        maxMoves = moves;
+    }
+
+    private long[] buildCellMasks(int index) {
+        long[] masks = new long[boardSize - lengths[index] + 1];
+        for (int position = 0; position < masks.length; position++) {
+            long mask = 0L;
+            for (int i = 0; i < lengths[index]; i++) {
+                int x = horizontal[index] ? position + i : lanes[index];
+                int y = horizontal[index] ? lanes[index] : position + i;
+                mask |= cellBit(x, y);
+            }
+            masks[position] = mask;
+        }
+        return masks;
+    }
+
+    // Keys depend only on what a vehicle is and where it stands, not on this
+    // layout instance, so identical boards hash alike across puzzles and runs.
+    private long[] buildZobristKeys(int index) {
+        long[] keys = new long[boardSize - lengths[index] + 1];
+        for (int position = 0; position < keys.length; position++) {
+            long seed = ids[index];
+            seed = seed * 31 + lengths[index];
+            seed = seed * 31 + (horizontal[index] ? 1 : 0);
+            seed = seed * 31 + lanes[index];
+            seed = seed * 31 + position;
+            seed = seed * 31 + boardSize;
+            keys[position] = splitMix64(seed);
+        }
+        return keys;
+    }
+
+    private static long splitMix64(long seed) {
+        long z = seed + 0x9e3779b97f4a7c15L;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private int[][] buildLaneVehicles(boolean rows) {
+        List<List<Integer>> lists = new ArrayList<>();
+        for (int lane = 0; lane < boardSize; lane++) {
+            lists.add(new ArrayList<>());
+        }
+        for (int index = 0; index < ids.length; index++) {
+            if (horizontal[index] == rows) {
+                lists.get(lanes[index]).add(index);
+            }
+        }
+        int[][] result = new int[boardSize][];
+        for (int lane = 0; lane < boardSize; lane++) {
+            result[lane] = lists.get(lane).stream().mapToInt(Integer::intValue).toArray();
+        }
+        return result;
+    }
+
+    public long encode(Map<Integer, Vehicle> vehicles) {
+        long positions = 0L;
+        for (Vehicle v : vehicles.values()) {
+            int index = indexOf(v.getId());
+            int position = v.getIsHorizontal() ? v.getStartX() : v.getStartY();
+            if (position < 0 || position >= cellMasks[index].length) {
+                throw new IllegalArgumentException("Vehicle " + v.getId() + " does not fit on the board");
+            }
+            positions = withPosition(positions, index, position);
+        }
+        return positions;
+    }
+
+    public long occupancy(long positions) {
+        long occupancy = 0L;
+        for (int index = 0; index < ids.length; index++) {
+            occupancy |= cellMask(index, position(positions, index));
+        }
+        return occupancy;
+    }
+
+    public long zobrist(long positions) {
+        long zobrist = 0L;
+        for (int index = 0; index < ids.length; index++) {
+            zobrist ^= zobristKey(index, position(positions, index));
+        }
+        return zobrist;
+    }
+
+    public long zobristKey(int index, int position) {
+        return zobristKeys[index][position];
+    }
+
+    public static int position(long positions, int index) {
+        return (int) ((positions >>> (index * BITS_PER_VEHICLE)) & POSITION_MASK);
+    }
+
+    public static long withPosition(long positions, int index, int position) {
+        int shift = index * BITS_PER_VEHICLE;
+        return (positions & ~(POSITION_MASK << shift)) | ((long) position << shift);
+    }
+
+    public long cellBit(int x, int y) {
+        return 1L << (y * boardSize + x);
+    }
+
+    public long cellMask(int index, int position) {
+        return cellMasks[index][position];
+    }
+
+    public int maxPosition(int index) {
+        return boardSize - lengths[index];
+    }
+
+    // Cells of the row or column the vehicle slides in.
+    public long getLaneMask(int index) {
+        return laneMasks[index];
+    }
+
+    MoveTable getMoveTable() {
+        return moveTable;
+    }
+
+    // Upper bound on the number of moves from any state of this layout.
+    public int getMaxMoves() {
+        return maxMoves;
+    }
+
+    public int indexOf(int id) {
+        int index = id >= 0 && id < indexById.length ? indexById[id] : -1;
+        if (index < 0) {
+            throw new IllegalArgumentException("Unknown vehicle id: " + id);
+        }
+        return index;
+    }
+
+    public boolean contains(int id) {
+        return id >= 0 && id < indexById.length && indexById[id] >= 0;
+    }
+
+    public int getVehicleCount() {
+        return ids.length;
+    }
+
+    public int getId(int index) {
+        return ids[index];
+    }
+
+    public int getLength(int index) {
+        return lengths[index];
+    }
+
+    public boolean isHorizontal(int index) {
+        return horizontal[index];
+    }
+
+    public int getLane(int index) {
+        return lanes[index];
+    }
+
+    public int getStartX(int index, int position) {
+        return horizontal[index] ? position : lanes[index];
+    }
+
+    public int getStartY(int index, int position) {
+        return horizontal[index] ? lanes[index] : position;
+    }
+
+    public int[] getRowVehicles(int row) {
+        return rowVehicles[row];
+    }
+
+    public int[] getColumnVehicles(int column) {
+        return columnVehicles[column];
+    }
+
+    public int getTargetIndex() {
+        return targetIndex;
+    }
+
+    public int getBoardSize() {
+        return boardSize;
+    }
+
+    // The board with the given packed positions (see Board.getStateKey).
+    public Board toBoard(long positions) {
+        return new Board(this, positions);
+    }
+
+    public Vehicle toVehicle(int index, int position) {
+        return new Vehicle(ids[index], getStartX(index, position), getStartY(index, position), lengths[index], horizontal[index]);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (!(obj instanceof BoardLayout)) return false;
+        BoardLayout other = (BoardLayout) obj;
+        return boardSize == other.boardSize
+                && Arrays.equals(ids, other.ids)
+                && Arrays.equals(lengths, other.lengths)
+                && Arrays.equals(horizontal, other.horizontal)
+                && Arrays.equals(lanes, other.lanes);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(boardSize, Arrays.hashCode(ids), Arrays.hashCode(lengths),
+                Arrays.hashCode(horizontal), Arrays.hashCode(lanes));
+    }
+}
@@ -0,0 +1,173 @@
+package solver;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Open list for small non-negative integer costs. Nodes live in intrusive
+// doubly linked lists indexed by (f, h), so push, pop and decrease-key are O(1)
+// apart from skipping empty buckets. Among equal f the lowest h is taken first.
+public class BucketQueue implements OpenList<Node> {
+    public enum TieBreak { LIFO, FIFO }
+
+    private final TieBreak tieBreak;
+    private final Map<Node, Node> index;
+    private Node[][] heads;
+    private Node[][] tails;
+    private int[] countPerF;
+    private int minF;
+    private int size;
+
+    public BucketQueue() {
+        this(TieBreak.LIFO);
+    }
+
+    public BucketQueue(TieBreak tieBreak) {
+        this.tieBreak = tieBreak;
+        this.index = new HashMap<>();
+        this.heads = new Node[0][];
+        this.tails = new Node[0][];
+        this.countPerF = new int[0];
+        this.minF = 0;
+        this.size = 0;
+    }
+
+    @Override
+    public void add(Node node) {
+        index.put(node, node);
+        link(node);
+    }
+
+    @Override
+    public Node poll() {
+        Node node = peek();
+        if (node != null) {
+            unlink(node);
+            index.remove(node);
+        }
+        return node;
+    }
+
+    @Override
+    public Node peek() {
+        if (size == 0) {
+            return null;
+        }
+        while (countPerF[minF] == 0) {
+            minF++;
+        }
+        Node[] fHeads = heads[minF];
+        int h = 0;
+        while (fHeads[h] == null) {
+            h++;
+        }
+        return tieBreak == TieBreak.LIFO ? fHeads[h] : tails[minF][h];
+    }
+
+    @Override
+    public boolean contains(Node node) {
+        return index.containsKey(node);
+    }
+
+    @Override
+    public Node getElement(Node node) {
+        return index.get(node);
+    }
+
+    @Override
+    public void update(Node node) {
+        Node queued = index.get(node);
+        if (queued != null) {
+            unlink(queued);
+            link(queued);
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        for (Node[] row : heads) {
+            Arrays.fill(row, null);
+        }
+        for (Node[] row : tails) {
+            Arrays.fill(row, null);
+        }
+        Arrays.fill(countPerF, 0);
+        index.clear();
+        minF = 0;
+        size = 0;
+    }
+
+    private void link(Node node) {
+        int f = node.getF();
+        int h = node.getH();
+        if (h < 0 || f < h) {
+            throw new IllegalArgumentException("Bucket queue needs non-negative g and h: g=" + node.getG() + ", h=" + h);
+        }
+        ensureCapacity(f, h);
+
+        node.bucketF = f;
+        node.bucketH = h;
+        node.bucketPrev = null;
+        node.bucketNext = heads[f][h];
+        if (heads[f][h] != null) {
+            heads[f][h].bucketPrev = node;
+        } else {
+            tails[f][h] = node;
+        }
+        heads[f][h] = node;
+
+        countPerF[f]++;
+        size++;
+        if (f < minF) {
+            minF = f;
+        }
+    }
+
+    private void unlink(Node node) {
+        int f = node.bucketF;
+        int h = node.bucketH;
+        if (node.bucketPrev != null) {
+            node.bucketPrev.bucketNext = node.bucketNext;
+        } else {
+            heads[f][h] = node.bucketNext;
+        }
+        if (node.bucketNext != null) {
+            node.bucketNext.bucketPrev = node.bucketPrev;
+        } else {
+            tails[f][h] = node.bucketPrev;
+        }
+        node.bucketPrev = null;
+        node.bucketNext = null;
+        countPerF[f]--;
+        size--;
+    }
+
+    private void ensureCapacity(int f, int h) {
+        if (f >= heads.length) {
+            int oldLength = heads.length;
+            int newLength = Math.max(f + 1, oldLength * 2);
+            heads = Arrays.copyOf(heads, newLength);
+            tails = Arrays.copyOf(tails, newLength);
+            countPerF = Arrays.copyOf(countPerF, newLength);
+            for (int i = oldLength; i < newLength; i++) {
+                heads[i] = new Node[0];
+                tails[i] = new Node[0];
+            }
+        }
+        if (h >= heads[f].length) {
+            int newLength = Math.max(h + 1, heads[f].length * 2);
+            heads[f] = Arrays.copyOf(heads[f], newLength);
+            tails[f] = Arrays.copyOf(tails[f], newLength);
+        }
+    }
+}
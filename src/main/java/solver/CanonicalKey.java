@@ -0,0 +1,136 @@
+package solver;
+
+import java.nio.ByteBuffer;
+
+// Exact key of what a board looks like, independent of the ids of all but
+// the red car: the occupied cells, which of them belong to horizontal
+// vehicles, which are the first cell of a vehicle, and where the red car
+// starts. A vehicle's length follows from where the next first cell or
+// empty cell is, so boards with equal keys are the same puzzle. Unlike the
+// Zobrist key it cannot collide. Boards with stacked vehicles have no key.
+//
+// ofComponent goes one step further and keys a board by its component:
+// every state reachable from the board gets the key of the same
+// representative, the hardest state with the smallest key.
+public final class CanonicalKey implements Comparable<CanonicalKey> {
+    // Bytes written by writeTo.
+    public static final int BYTES = 3 * Long.BYTES + Integer.BYTES;
+
+    private final long occupancy;
+    private final long horizontal;
+    private final long heads;
+    private final int shape;
+
+    private CanonicalKey(long occupancy, long horizontal, long heads, int shape) {
+        this.occupancy = occupancy;
+        this.horizontal = horizontal;
+        this.heads = heads;
+        this.shape = shape;
+    }
+
+    public static CanonicalKey of(Board board) {
+        if (board.hasOverlappingVehicles()) {
+            throw new IllegalArgumentException("Board has overlapping vehicles");
+        }
+        BoardLayout layout = board.getLayout();
+        long horizontal = 0L;
+        long heads = 0L;
+        int redHead = -1;
+        for (int index = 0; index < layout.getVehicleCount(); index++) {
+            int position = board.getPosition(index);
+            long cells = layout.cellMask(index, position);
+            long head = layout.cellBit(layout.getStartX(index, position), layout.getStartY(index, position));
+            if (layout.isHorizontal(index)) {
+                horizontal |= cells;
+            }
+            heads |= head;
+            if (index == layout.getTargetIndex()) {
+                redHead = Long.numberOfTrailingZeros(head);
+            }
+        }
+        return new CanonicalKey(board.getOccupancy(), horizontal, heads, layout.getBoardSize() << 8 | (redHead & 0xFF));
+    }
+
+    // Key of the board's component, or of the board itself when the
+    // component has more than maxStates states.
+    public static CanonicalKey ofComponent(Board board, int maxStates) {
+        Board representative = representative(board, maxStates);
+        return of(representative == null ? board : representative);
+    }
+
+    // The hardest state of the board's component, the one with the smallest
+    // key when there are several; without a goal, the smallest of all
+    // states. Null when the component has more than maxStates states.
+    public static Board representative(Board board, int maxStates) {
+        if (board.hasOverlappingVehicles()) {
+            throw new IllegalArgumentException("Board has overlapping vehicles");
+        }
+        ComponentExplorer.Component component = ComponentExplorer.explore(board, maxStates);
+        if (component == null) {
+            return null;
+        }
+        BoardLayout layout = board.getLayout();
+        long[] candidates = component.getFarthestStates();
+        if (candidates.length == 0) {
+            candidates = new long[component.size()];
+            for (int id = 0; id < candidates.length; id++) {
+                candidates[id] = component.getState(id);
+            }
+        }
+        Board best = null;
+        CanonicalKey bestKey = null;
+        for (long state : candidates) {
+            Board candidate = layout.toBoard(state);
+            CanonicalKey key = of(candidate);
+            if (bestKey == null || key.compareTo(bestKey) < 0) {
+                best = candidate;
+                bestKey = key;
+            }
+        }
+        return best;
+    }
+
+    public void writeTo(ByteBuffer buffer) {
+        buffer.putLong(occupancy).putLong(horizontal).putLong(heads).putInt(shape);
+    }
+
+    public static CanonicalKey readFrom(ByteBuffer buffer) {
+        return new CanonicalKey(buffer.getLong(), buffer.getLong(), buffer.getLong(), buffer.getInt());
+    }
+
+    // A well mixed 64-bit hash for on-disk tables.
+    public long longHash() {
+        long hash = occupancy * 0x9E3779B97F4A7C15L;
+        hash = (hash ^ horizontal ^ (hash >>> 29)) * 0xBF58476D1CE4E5B9L;
+        hash = (hash ^ heads ^ (hash >>> 32)) * 0x94D049BB133111EBL;
+        hash = (hash ^ shape ^ (hash >>> 29)) * 0x9E3779B97F4A7C15L;
+        return hash ^ (hash >>> 32);
+    }
+
+    @Override
+    public int compareTo(CanonicalKey other) {
+        int order = Integer.compare(shape, other.shape);
+        if (order == 0) order = Long.compareUnsigned(occupancy, other.occupancy);
+        if (order == 0) order = Long.compareUnsigned(horizontal, other.horizontal);
+        if (order == 0) order = Long.compareUnsigned(heads, other.heads);
+        return order;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (!(obj instanceof CanonicalKey)) return false;
+        CanonicalKey other = (CanonicalKey) obj;
+        return occupancy == other.occupancy && horizontal == other.horizontal
+                && heads == other.heads && shape == other.shape;
+    }
+
+    @Override
+    public int hashCode() {
+        long hash = occupancy * 0x9E3779B97F4A7C15L;
+        hash = (hash ^ horizontal) * 0x9E3779B97F4A7C15L;
+        hash = (hash ^ heads) * 0x9E3779B97F4A7C15L;
+        hash ^= shape;
+        return (int) (hash ^ (hash >>> 32));
+    }
+}
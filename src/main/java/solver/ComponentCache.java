@@ -0,0 +1,108 @@
+package solver;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Goal distances of whole components, kept per layout class. Sliding a
+// vehicle never leaves a component, so once one board has been explored
+// every board reachable from it is answered by a lookup instead of a search.
+// Boards with stacked vehicles are left to a search, since their moves are
+// not always reversible. Components larger than maxComponentSize are not
+// explored, and neither is their layout after that. The cache is emptied
+// when it holds more than maxCachedStates states. Instances can be shared
+// between threads; two threads may occasionally explore the same component.
+public class ComponentCache {
+    public static final int UNSOLVABLE = -1;
+    public static final int UNKNOWN = -2;
+    public static final int DEFAULT_MAX_COMPONENT_SIZE = 1 << 15;
+    public static final long DEFAULT_MAX_CACHED_STATES = 1 << 20;
+
+    private final int maxComponentSize;
+    private final long maxCachedStates;
+    private final Map<BoardLayout, List<ComponentExplorer.Component>> components = new ConcurrentHashMap<>();
+    private final Set<BoardLayout> tooLarge = ConcurrentHashMap.newKeySet();
+    private final AtomicLong cachedStates = new AtomicLong();
+
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder explorations = new LongAdder();
+
+    public ComponentCache() {
+        this(DEFAULT_MAX_COMPONENT_SIZE, DEFAULT_MAX_CACHED_STATES);
+    }
+
+    public ComponentCache(int maxComponentSize, long maxCachedStates) {
+        this.maxComponentSize = maxComponentSize;
+        this.maxCachedStates = maxCachedStates;
+    }
+
+    // Optimal number of moves, UNSOLVABLE when the component has no goal, or
+    // UNKNOWN when the board needs a search.
+    public int distance(Board board) {
+        lookups.increment();
+        if (board.hasOverlappingVehicles()) {
+            return UNKNOWN;
+        }
+        BoardLayout layout = board.getLayout();
+        List<ComponentExplorer.Component> known = components.get(layout);
+        if (known != null) {
+            for (ComponentExplorer.Component component : known) {
+                if (component.contains(board.getStateKey())) {
+                    hits.increment();
+                    return distance(component, board);
+                }
+            }
+        }
+        if (tooLarge.contains(layout)) {
+            return UNKNOWN;
+        }
+
+        explorations.increment();
+        ComponentExplorer.Component component = ComponentExplorer.explore(board, maxComponentSize);
+        if (component == null) {
+            tooLarge.add(layout);
+            return UNKNOWN;
+        }
+        if (cachedStates.addAndGet(component.size()) > maxCachedStates) {
+            clear();
+            cachedStates.addAndGet(component.size());
+        }
+        components.computeIfAbsent(layout, key -> new CopyOnWriteArrayList<>()).add(component);
+        return distance(component, board);
+    }
+
+    private static int distance(ComponentExplorer.Component component, Board board) {
+        return component.isSolvable() ? component.distance(board.getStateKey()) : UNSOLVABLE;
+    }
+
+    public void clear() {
+        components.clear();
+        tooLarge.clear();
+        cachedStates.set(0);
+    }
+
+    public long getLookups() {
+        return lookups.sum();
+    }
+
+    // Lookups answered from an already explored component.
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getExplorations() {
+        return explorations.sum();
+    }
+
+    @Override
+    public String toString() {
+        long lookups = getLookups();
+        return String.format("lookups=%d derived=%d (%.1f%%) explored=%d cached states=%d",
+                lookups, getHits(), lookups == 0 ? 0.0 : 100.0 * getHits() / lookups, getExplorations(), cachedStates.get());
+    }
+}
@@ -0,0 +1,344 @@
+package solver;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// Walks the whole connected component of a board: a breadth-first search
+// over packed state keys numbers every state in discovery order (the start
+// is 0) and records its neighbours in a compact adjacency array. Moves are
+// reversible, so a second breadth-first search from all goal states over
+// that array, without generating moves again, gives every state's distance
+// to the nearest goal. That does not hold for boards with stacked vehicles.
+//
+// The graph can be streamed to a file while it is explored. Format, after
+// the layout header: state count and edge count (longs, filled in at the
+// end), then per state in id order its key (long), neighbour count
+// (unsigned byte) and neighbour ids (ints), then one goal distance byte per
+// state (UNSOLVABLE when the component has no goal).
+public class ComponentExplorer {
+    public static final int UNSOLVABLE = 0xFF;
+    private static final int MAGIC = 0x43475231;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private ComponentExplorer() {
+    }
+
+    // Explores the component of every puzzle in a puzzle file and writes
+    // each graph to the directory.
+    public static void main(String[] args) throws IOException {
+        Path directory = Paths.get(args.length > 0 ? args[0] : System.getProperty("java.io.tmpdir") + "/rush-hour-components");
+        String puzzleFile = args.length > 1 ? args[1] : "puzzles.txt";
+        Files.createDirectories(directory);
+        int number = 0;
+        for (Board board : new Puzzle(puzzleFile).getAllPuzzleBoards()) {
+            long startTime = System.currentTimeMillis();
+            Component component = explore(board, directory.resolve("component-" + number++ + ".bin"));
+            System.out.println(component + " (" + (System.currentTimeMillis() - startTime) + "ms)");
+        }
+    }
+
+    public static Component explore(Board start) {
+        return explore(start, Integer.MAX_VALUE);
+    }
+
+    // Gives up and returns null once the component has more than maxStates
+    // states.
+    public static Component explore(Board start, int maxStates) {
+        try {
+            return explore(start, null, maxStates);
+        } catch (IOException e) {
+            throw new IllegalStateException("No file was written", e);
+        }
+    }
+
+    public static Component explore(Board start, Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            return explore(start, channel, Integer.MAX_VALUE);
+        }
+    }
+
+    private static Component explore(Board start, FileChannel channel, int maxStates) throws IOException {
+        BoardLayout layout = start.getLayout();
+        Output output = new Output(channel);
+        byte[] header = MappedFiles.header(MAGIC, layout);
+        output.put(header);
+        long countsPosition = header.length;
+        output.putLong(0L).putLong(0L);
+
+        // The state table maps a key to its id, kept in the depth field.
+        StateTable ids = new StateTable();
+        LongList states = new LongList();
+        int[] offsets = new int[1024];
+        int[] neighbours = new int[8192];
+        int edgeCount = 0;
+        int[] goals = new int[16];
+        int goalCount = 0;
+        int maxBranching = 0;
+
+        int[] moves = new int[layout.getMaxMoves()];
+        ids.putIfAbsent(start.getStateKey(), StateTable.NO_PARENT, 0);
+        states.add(start.getStateKey());
+        for (int id = 0; id < states.size(); id++) {
+            long key = states.get(id);
+            Board board = new Board(layout, key);
+            if (board.isGoal()) {
+                if (goalCount == goals.length) {
+                    goals = Arrays.copyOf(goals, goalCount * 2);
+                }
+                goals[goalCount++] = id;
+            }
+
+            int count = board.generateMoves(moves);
+            maxBranching = Math.max(maxBranching, count);
+            if (neighbours.length < edgeCount + count) {
+                neighbours = Arrays.copyOf(neighbours, Math.max(neighbours.length * 2, edgeCount + count));
+            }
+            output.putLong(key).putByte(count);
+            for (int i = 0; i < count; i++) {
+                long child = board.childStateKey(moves[i]);
+                int childId = states.size();
+                if (ids.putIfAbsent(child, key, childId)) {
+                    if (childId >= maxStates) {
+                        return null;
+                    }
+                    states.add(child);
+                } else {
+                    childId = ids.depthOf(child);
+                }
+                neighbours[edgeCount++] = childId;
+                output.putInt(childId);
+            }
+            if (offsets.length < id + 2) {
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            }
+            offsets[id + 1] = edgeCount;
+        }
+
+        byte[] distances = goalDistances(states.size(), offsets, neighbours, goals, goalCount);
+        output.put(distances);
+        output.flush();
+        if (channel != null) {
+            ByteBuffer counts = ByteBuffer.allocate(2 * Long.BYTES).putLong(states.size()).putLong(edgeCount);
+            counts.flip();
+            while (counts.hasRemaining()) {
+                channel.write(counts, countsPosition + counts.position());
+            }
+        }
+        return new Component(layout, states.toArray(), ids, distances, edgeCount, goalCount, maxBranching);
+    }
+
+    private static byte[] goalDistances(int size, int[] offsets, int[] neighbours, int[] goals, int goalCount) {
+        byte[] distances = new byte[size];
+        Arrays.fill(distances, (byte) UNSOLVABLE);
+        int[] queue = new int[size];
+        int tail = 0;
+        for (int i = 0; i < goalCount; i++) {
+            distances[goals[i]] = 0;
+            queue[tail++] = goals[i];
+        }
+        for (int head = 0; head < tail; head++) {
+            int id = queue[head];
+            int distance = (distances[id] & 0xFF) + 1;
+            if (distance >= UNSOLVABLE) {
+                throw new IllegalStateException("Component has states more than " + (UNSOLVABLE - 1) + " moves from a goal");
+            }
+            for (int e = offsets[id]; e < offsets[id + 1]; e++) {
+                int next = neighbours[e];
+                if ((distances[next] & 0xFF) == UNSOLVABLE) {
+                    distances[next] = (byte) distance;
+                    queue[tail++] = next;
+                }
+            }
+        }
+        return distances;
+    }
+
+    // Buffered writes to an optional channel.
+    private static class Output {
+        private final FileChannel channel;
+        private final ByteBuffer buffer;
+
+        Output(FileChannel channel) {
+            this.channel = channel;
+            this.buffer = channel == null ? null : ByteBuffer.allocateDirect(BUFFER_SIZE);
+        }
+
+        Output put(byte[] bytes) throws IOException {
+            if (channel != null) {
+                for (int offset = 0; offset < bytes.length; ) {
+                    int length = Math.min(buffer.remaining(), bytes.length - offset);
+                    buffer.put(bytes, offset, length);
+                    offset += length;
+                    if (!buffer.hasRemaining()) {
+                        flush();
+                    }
+                }
+            }
+            return this;
+        }
+
+        Output putLong(long value) throws IOException {
+            if (channel != null) {
+                ensure(Long.BYTES);
+                buffer.putLong(value);
+            }
+            return this;
+        }
+
+        Output putInt(int value) throws IOException {
+            if (channel != null) {
+                ensure(Integer.BYTES);
+                buffer.putInt(value);
+            }
+            return this;
+        }
+
+        Output putByte(int value) throws IOException {
+            if (channel != null) {
+                ensure(1);
+                buffer.put((byte) value);
+            }
+            return this;
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        void flush() throws IOException {
+            if (channel == null) {
+                return;
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+
+    public static class Component {
+        private final BoardLayout layout;
+        private final long[] states;
+        private final StateTable ids;
+        private final byte[] distances;
+        private final int edgeCount;
+        private final int goalCount;
+        private final int maxBranching;
+        private final int maxDistance;
+
+        Component(BoardLayout layout, long[] states, StateTable ids, byte[] distances,
+                  int edgeCount, int goalCount, int maxBranching) {
+            this.layout = layout;
+            this.states = states;
+            this.ids = ids;
+            this.distances = distances;
+            this.edgeCount = edgeCount;
+            this.goalCount = goalCount;
+            this.maxBranching = maxBranching;
+            int max = goalCount == 0 ? -1 : 0;
+            for (byte distance : distances) {
+                if ((distance & 0xFF) != UNSOLVABLE) {
+                    max = Math.max(max, distance & 0xFF);
+                }
+            }
+            this.maxDistance = max;
+        }
+
+        public BoardLayout getLayout() {
+            return layout;
+        }
+
+        public int size() {
+            return states.length;
+        }
+
+        // Moves between states, each counted from both ends.
+        public int getEdgeCount() {
+            return edgeCount;
+        }
+
+        public int getGoalCount() {
+            return goalCount;
+        }
+
+        public boolean isSolvable() {
+            return goalCount > 0;
+        }
+
+        public double getAverageBranchingFactor() {
+            return (double) edgeCount / states.length;
+        }
+
+        public int getMaxBranchingFactor() {
+            return maxBranching;
+        }
+
+        // Distance of the state farthest from any goal, or -1 without goals.
+        public int getMaxDistance() {
+            return maxDistance;
+        }
+
+        // Optimal solution length of the board the component was explored from.
+        public int getStartDistance() {
+            return distance(0);
+        }
+
+        public boolean contains(long stateKey) {
+            return ids.contains(stateKey);
+        }
+
+        // Goal distance of a state (see Board.getStateKey), or -1 when it is
+        // not in the component or the component has no goal.
+        public int distance(long stateKey) {
+            int id = ids.depthOf(stateKey);
+            return id < 0 ? -1 : distance(id);
+        }
+
+        private int distance(int id) {
+            int distance = distances[id] & 0xFF;
+            return distance == UNSOLVABLE ? -1 : distance;
+        }
+
+        // Number of states at each goal distance.
+        public int[] getDistanceHistogram() {
+            int[] histogram = new int[maxDistance + 1];
+            for (byte distance : distances) {
+                if ((distance & 0xFF) != UNSOLVABLE) {
+                    histogram[distance & 0xFF]++;
+                }
+            }
+            return histogram;
+        }
+
+        // States at the largest goal distance, in discovery order.
+        public long[] getFarthestStates() {
+            LongList farthest = new LongList();
+            for (int id = 0; id < states.length; id++) {
+                if (maxDistance >= 0 && (distances[id] & 0xFF) == maxDistance) {
+                    farthest.add(states[id]);
+                }
+            }
+            return farthest.toArray();
+        }
+
+        public long getState(int id) {
+            return states[id];
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d states, %d goals, start distance %d, max distance %d, branching %.2f avg / %d max",
+                    size(), goalCount, getStartDistance(), maxDistance, getAverageBranchingFactor(), maxBranching);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package solver;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Exact number of moves to the goal for every solvable state of one layout
+// class. It is built offline by a breadth-first search backwards from all
+// goal states, which covers every connected component that contains a goal.
+// States are stored as sorted packed keys (Board.getStateKey) with one
+// distance byte each, so a query is a binary search. The table is written
+// to a directory and memory mapped from there on later runs.
+public class DistanceDatabase {
+    public static final int UNSOLVABLE = 0xFF;
+    public static final int DEFAULT_GOAL_LIMIT = BidirectionalBFS.DEFAULT_GOAL_LIMIT;
+    private static final int MAGIC = 0x44535431;
+    private static final Map<String, DistanceDatabase> LOADED = new ConcurrentHashMap<>();
+
+    private final BoardLayout layout;
+    private final byte[] header;
+    private final LongBuffer keys;
+    private final ByteBuffer distances;
+
+    // Builds the tables of every puzzle in a puzzle file ahead of time.
+    public static void main(String[] args) {
+        Path directory = Paths.get(args.length > 0 ? args[0] : System.getProperty("java.io.tmpdir") + "/rush-hour-distances");
+        String puzzleFile = args.length > 1 ? args[1] : "puzzles.txt";
+        for (Board board : new Puzzle(puzzleFile).getAllPuzzleBoards()) {
+            long startTime = System.currentTimeMillis();
+            DistanceDatabase database = load(board.getLayout(), directory);
+            System.out.println(database.size() + " states, puzzle needs " + database.distance(board)
+                    + " moves (" + (System.currentTimeMillis() - startTime) + "ms)");
+        }
+    }
+
+    private DistanceDatabase(BoardLayout layout, LongBuffer keys, ByteBuffer distances) {
+        this.layout = layout;
+        this.header = MappedFiles.header(MAGIC, layout);
+        this.keys = keys;
+        this.distances = distances;
+    }
+
+    // Builds the table in memory.
+    public static DistanceDatabase build(BoardLayout layout) {
+        ByteBuffer body = buildBody(layout);
+        return fromBody(layout, body);
+    }
+
+    // Loads the table of the layout class from the directory, building and
+    // storing it first if needed.
+    public static DistanceDatabase load(BoardLayout layout, Path directory) {
+        byte[] header = MappedFiles.header(MAGIC, layout);
+        String signature = MappedFiles.signature(header);
+        return LOADED.computeIfAbsent(directory + "/" + signature, key -> {
+            try {
+                Path file = directory.resolve("distances-" + signature + ".bin");
+                if (!Files.exists(file)) {
+                    MappedFiles.write(directory, file, ByteBuffer.wrap(header), buildBody(layout));
+                }
+                return fromBody(layout, MappedFiles.map(file, header));
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to load distance database " + signature, e);
+            }
+        });
+    }
+
+    // Body layout: state count, the sorted keys, then one distance per key.
+    private static ByteBuffer buildBody(BoardLayout layout) {
+        long[] goals = GoalStates.enumerate(layout, DEFAULT_GOAL_LIMIT);
+        if (goals == null) {
+            throw new IllegalArgumentException("Layout has more than " + DEFAULT_GOAL_LIMIT + " goal states");
+        }
+
+        StateTable visited = new StateTable(goals.length * 4);
+        LongList frontier = new LongList(goals.length);
+        for (long goal : goals) {
+            visited.putIfAbsent(goal, StateTable.NO_PARENT, 0);
+            frontier.add(goal);
+        }
+
+        int[] moves = new int[layout.getMaxMoves()];
+        LongList states = new LongList(goals.length * 4);
+        for (int depth = 0; !frontier.isEmpty(); depth++) {
+            if (depth >= UNSOLVABLE) {
+                throw new IllegalStateException("Layout has states more than " + (UNSOLVABLE - 1) + " moves from a goal");
+            }
+            LongList next = new LongList(frontier.size() * 2);
+            for (int i = 0; i < frontier.size(); i++) {
+                long key = frontier.get(i);
+                states.add(key);
+                Board board = new Board(layout, key);
+                int count = board.generateMoves(moves);
+                for (int m = 0; m < count; m++) {
+                    long successor = board.childStateKey(moves[m]);
+                    if (visited.putIfAbsent(successor, key, depth + 1)) {
+                        next.add(successor);
+                    }
+                }
+            }
+            frontier = next;
+        }
+
+        long[] sorted = states.toArray();
+        Arrays.sort(sorted);
+        ByteBuffer body = ByteBuffer.allocate(Long.BYTES + sorted.length * (Long.BYTES + 1));
+        body.putLong(sorted.length);
+        for (long key : sorted) {
+            body.putLong(key);
+        }
+        for (long key : sorted) {
+            body.put((byte) visited.depthOf(key));
+        }
+        body.flip();
+        return body;
+    }
+
+    private static DistanceDatabase fromBody(BoardLayout layout, ByteBuffer body) {
+        long count = body.getLong(0);
+        if (body.capacity() != Long.BYTES + count * (Long.BYTES + 1)) {
+            throw new IllegalStateException("Distance database has the wrong size: " + body.capacity() + " bytes for " + count + " states");
+        }
+        int keyBytes = (int) count * Long.BYTES;
+        LongBuffer keys = body.duplicate().position(Long.BYTES).limit(Long.BYTES + keyBytes).slice().asLongBuffer();
+        ByteBuffer distances = body.duplicate().position(Long.BYTES + keyBytes).slice();
+        return new DistanceDatabase(layout, keys, distances);
+    }
+
+    public BoardLayout getLayout() {
+        return layout;
+    }
+
+    public int size() {
+        return keys.capacity();
+    }
+
+    // Moves left to solve the board, or UNSOLVABLE. The board must belong
+    // to this layout class: the same shape, whatever the vehicle ids.
+    public int distance(Board board) {
+        if (board.getLayout() != layout && !Arrays.equals(MappedFiles.header(MAGIC, board.getLayout()), header)) {
+            throw new IllegalArgumentException("Board does not belong to this layout class");
+        }
+        return distance(board.getStateKey());
+    }
+
+    public int distance(long stateKey) {
+        int low = 0;
+        int high = keys.capacity() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long key = keys.get(middle);
+            if (key < stateKey) {
+                low = middle + 1;
+            } else if (key > stateKey) {
+                high = middle - 1;
+            } else {
+                return distances.get(middle) & 0xFF;
+            }
+        }
+        return UNSOLVABLE;
+    }
+
+    // A move (see Move) that brings the board one step closer to the goal,
+    // or -1 when it is solved or unsolvable.
+    public int nextOptimalMove(Board board) {
+        int distance = distance(board);
+        if (distance == 0 || distance == UNSOLVABLE) {
+            return -1;
+        }
+        int[] moves = new int[layout.getMaxMoves()];
+        int count = board.generateMoves(moves);
+        for (int i = 0; i < count; i++) {
+            if (distance(board.childStateKey(moves[i])) == distance - 1) {
+                return moves[i];
+            }
+        }
+        throw new IllegalStateException("No move lowers the distance " + distance + "; the table is inconsistent");
+    }
+
+    // An optimal solution found by following the table, or null if the
+    // board cannot be solved.
+    public List<Board> solve(Board initialBoard) {
+        if (distance(initialBoard) == UNSOLVABLE) {
+            return null;
+        }
+        List<Board> path = new ArrayList<>();
+        Board board = initialBoard.clone();
+        path.add(board);
+        int move;
+        while ((move = nextOptimalMove(board)) != -1) {
+            board = board.applyMove(move);
+            path.add(board);
+        }
+        return path;
+    }
+}
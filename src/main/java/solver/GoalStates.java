@@ -0,0 +1,41 @@
+package solver;
+
+// Enumerates every legal placement of a layout's vehicles with the red car
+// touching the exit.
+public class GoalStates {
+
+    // Returns null when the layout has more than limit goal states.
+    public static long[] enumerate(BoardLayout layout, int limit) {
+        int target = layout.getTargetIndex();
+        if (target < 0) {
+            throw new IllegalArgumentException("Layout has no target vehicle");
+        }
+        int goalPosition = layout.maxPosition(target);
+        long positions = BoardLayout.withPosition(0L, target, goalPosition);
+        LongList goals = new LongList();
+        boolean complete = place(layout, 0, positions, layout.cellMask(target, goalPosition), goals, limit);
+        return complete ? goals.toArray() : null;
+    }
+
+    private static boolean place(BoardLayout layout, int index, long positions, long occupancy, LongList goals, int limit) {
+        if (index == layout.getVehicleCount()) {
+            if (goals.size() >= limit) {
+                return false;
+            }
+            goals.add(positions);
+            return true;
+        }
+        if (index == layout.getTargetIndex()) {
+            return place(layout, index + 1, positions, occupancy, goals, limit);
+        }
+        for (int position = 0; position <= layout.maxPosition(index); position++) {
+            long mask = layout.cellMask(index, position);
+            if ((occupancy & mask) == 0) {
+                if (!place(layout, index + 1, BoardLayout.withPosition(positions, index, position), occupancy | mask, goals, limit)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,141 @@
+package solver;
+
+import heuristics.Heuristic;
+
+import java.util.*;
+
+// Iterative deepening A* on a single board that is mutated in place and
+// restored after each move, so memory stays proportional to the solution
+// depth. An optional direct-mapped transposition table drops states already
+// reached at a lower or equal g within the current iteration.
+public class IDAStar {
+    public static final int DEFAULT_TABLE_SIZE = 1 << 20;
+    public static final int DEFAULT_MAX_THRESHOLD = 128;
+    private static final int FOUND = -1;
+
+    private final long[] tableKeys;
+    private final int[] tableG;
+    private final int[] tableIteration;
+    private final int maxThreshold;
+    private int iteration;
+    private int nodesExpanded;
+
+    private Board board;
+    private Heuristic heuristic;
+    private int[][] moveBuffers;
+    private int[] path;
+    private int pathLength;
+
+    public IDAStar() {
+        this(DEFAULT_TABLE_SIZE);
+    }
+
+    public IDAStar(int transpositionTableSize) {
+        this(transpositionTableSize, DEFAULT_MAX_THRESHOLD);
+    }
+
+    public IDAStar(int transpositionTableSize, int maxThreshold) {
+        if (transpositionTableSize < 0 || Integer.bitCount(transpositionTableSize) > 1) {
+            throw new IllegalArgumentException("Transposition table size must be 0 or a power of two: " + transpositionTableSize);
+        }
+        this.tableKeys = new long[transpositionTableSize];
+        this.tableG = new int[transpositionTableSize];
+        this.tableIteration = new int[transpositionTableSize];
+        this.maxThreshold = maxThreshold;
+        this.nodesExpanded = 0;
+    }
+
+    // Gives up and returns null once the f-bound passes maxThreshold, which
+    // is the only way an unsolvable board can be reported.
+    public List<Board> solve(Board initialBoard, Heuristic heuristic) {
+        this.board = initialBoard.clone();
+        this.heuristic = heuristic;
+        this.moveBuffers = new int[maxThreshold + 1][board.getLayout().getMaxMoves()];
+        this.path = new int[maxThreshold + 1];
+        this.pathLength = 0;
+        this.nodesExpanded = 0;
+
+        int threshold = heuristic.calculateH(board);
+        while (threshold <= maxThreshold) {
+            iteration++;
+            int result = search(0, threshold, -1);
+            if (result == FOUND) {
+                return constructPath(initialBoard);
+            }
+            if (result == Integer.MAX_VALUE) {
+                return null;
+            }
+            threshold = result;
+        }
+        return null;
+    }
+
+    // Returns FOUND, or the smallest f that exceeded the threshold below this node.
+    private int search(int g, int threshold, int lastIndex) {
+        // any h past threshold - g prunes the node, so the exact value is not needed
+        int f = g + heuristic.calculateH(board, threshold - g + 1);
+        if (f > threshold) {
+            return f;
+        }
+        if (board.isGoal()) {
+            return FOUND;
+        }
+        if (isTransposition(g)) {
+            return Integer.MAX_VALUE;
+        }
+        nodesExpanded++;
+
+        int min = Integer.MAX_VALUE;
+        int[] moves = moveBuffers[g];
+        int count = board.generateMoves(moves);
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            // two consecutive moves of the same vehicle are never better than one
+            if (Move.vehicleIndex(move) == lastIndex) {
+                continue;
+            }
+            board.makeMove(move);
+            path[pathLength++] = move;
+
+            int result = search(g + 1, threshold, Move.vehicleIndex(move));
+            if (result == FOUND) {
+                return FOUND;
+            }
+
+            pathLength--;
+            board.unmakeMove(move);
+            min = Math.min(min, result);
+        }
+        return min;
+    }
+
+    private boolean isTransposition(int g) {
+        if (tableKeys.length == 0) {
+            return false;
+        }
+        long key = board.getStateKey();
+        int slot = board.hashCode() & (tableKeys.length - 1);
+        if (tableIteration[slot] == iteration && tableKeys[slot] == key && tableG[slot] <= g) {
+            return true;
+        }
+        tableKeys[slot] = key;
+        tableG[slot] = g;
+        tableIteration[slot] = iteration;
+        return false;
+    }
+
+    private List<Board> constructPath(Board initialBoard) {
+        List<Board> boards = new ArrayList<>();
+        Board current = initialBoard.clone();
+        boards.add(current);
+        for (int i = 0; i < pathLength; i++) {
+            current = current.applyMove(path[i]);
+            boards.add(current);
+        }
+        return boards;
+    }
+
+    public int getNodesExpanded() {
+        return nodesExpanded;
+    }
+}
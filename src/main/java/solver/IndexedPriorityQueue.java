@@ -1,7 +1,7 @@
 package solver;
 import java.util.*;
 
-public class IndexedPriorityQueue<T> {
+public class IndexedPriorityQueue<T> implements OpenList<T> {
     private List<T> heap;
     private Map<T, Integer> indexMap;
     private Comparator<? super T> comparator;
@@ -12,10 +12,12 @@ public class IndexedPriorityQueue<T> {
         this.comparator = comparator;
     }
 
+    @Override
     public boolean contains(T element) {
         return indexMap.containsKey(element);
     }
 
+    @Override
     public void add(T element) {
         heap.add(element);
         int index = heap.size() - 1;
@@ -23,6 +25,7 @@ public class IndexedPriorityQueue<T> {
         percolateUp(index);
     }
 
+    @Override
     public T poll() {
         if (heap.isEmpty()) {
             return null;
@@ -39,6 +42,11 @@ public class IndexedPriorityQueue<T> {
         return minElement;
     }
 
+    @Override
+    public T peek() {
+        return heap.isEmpty() ? null : heap.get(0);
+    }
+
     public void remove(T element) {
         Integer index = indexMap.get(element);
         if (index == null) {
@@ -55,6 +63,7 @@ public class IndexedPriorityQueue<T> {
         }
     }
 
+    @Override
     public void update(T element) {
         Integer index = indexMap.get(element);
         if (index != null) {
@@ -63,6 +72,7 @@ public class IndexedPriorityQueue<T> {
         }
     }
 
+    @Override
     public T getElement(T element) {
         Integer index = indexMap.get(element);
         if (index != null) {
@@ -71,10 +81,22 @@ public class IndexedPriorityQueue<T> {
         return null;
     }
 
+    @Override
     public boolean isEmpty() {
         return heap.isEmpty();
     }
 
+    @Override
+    public int size() {
+        return heap.size();
+    }
+
+    @Override
+    public void clear() {
+        heap.clear();
+        indexMap.clear();
+    }
+
     // Helper methods for percolating up and down
     private void percolateUp(int index) {
         T element = heap.get(index);
@@ -0,0 +1,114 @@
+package solver;
+
+import java.util.Arrays;
+
+// Open-addressing set of primitive longs with linear probing. Zero marks an
+// empty slot, so the key 0 is tracked separately.
+public class LongHashSet {
+    private static final int DEFAULT_CAPACITY = 1 << 10;
+    private static final float DEFAULT_LOAD_FACTOR = 0.5f;
+
+    private final float loadFactor;
+    private long[] keys;
+    private int mask;
+    private int size;
+    private int resizeThreshold;
+    private boolean containsZero;
+
+    public LongHashSet() {
+        this(DEFAULT_CAPACITY, DEFAULT_LOAD_FACTOR);
+    }
+
+    public LongHashSet(int initialCapacity, float loadFactor) {
+        if (loadFactor <= 0f || loadFactor >= 1f) {
+            throw new IllegalArgumentException("Load factor must be in (0, 1): " + loadFactor);
+        }
+        this.loadFactor = loadFactor;
+        allocate(tableSizeFor(initialCapacity, loadFactor));
+    }
+
+    private static int tableSizeFor(int expectedSize, float loadFactor) {
+        long required = (long) Math.ceil(Math.max(expectedSize, 2) / (double) loadFactor);
+        long capacity = Long.highestOneBit(required - 1) << 1;
+        if (capacity > 1 << 30) {
+            throw new IllegalArgumentException("Capacity too large: " + expectedSize);
+        }
+        return (int) capacity;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        mask = capacity - 1;
+        resizeThreshold = (int) (capacity * loadFactor);
+    }
+
+    static int slot(long key, int mask) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return (int) key & mask;
+    }
+
+    public boolean add(long key) {
+        if (key == 0L) {
+            if (containsZero) return false;
+            containsZero = true;
+            size++;
+            return true;
+        }
+        int index = slot(key, mask);
+        while (keys[index] != 0L) {
+            if (keys[index] == key) return false;
+            index = (index + 1) & mask;
+        }
+        keys[index] = key;
+        if (++size >= resizeThreshold) {
+            rehash(keys.length << 1);
+        }
+        return true;
+    }
+
+    public boolean contains(long key) {
+        if (key == 0L) return containsZero;
+        int index = slot(key, mask);
+        long current;
+        while ((current = keys[index]) != 0L) {
+            if (current == key) return true;
+            index = (index + 1) & mask;
+        }
+        return false;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        allocate(capacity);
+        for (long key : oldKeys) {
+            if (key != 0L) {
+                int index = slot(key, mask);
+                while (keys[index] != 0L) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = key;
+            }
+        }
+    }
+
+    // Keeps the current table so a reused set does not grow again.
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        containsZero = false;
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int capacity() {
+        return keys.length;
+    }
+}
@@ -0,0 +1,84 @@
+package solver;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.Arrays;
+
+// On-disk tables keyed by a layout. Every file starts with a header that
+// repeats the layout shape, so a hash collision in the file name can never
+// hand out a table for a different layout.
+final class MappedFiles {
+
+    private MappedFiles() {
+    }
+
+    static byte[] header(int magic, BoardLayout layout) {
+        ByteBuffer header = ByteBuffer.allocate(4 * Integer.BYTES + 3 * layout.getVehicleCount());
+        header.putInt(magic).putInt(layout.getBoardSize()).putInt(layout.getVehicleCount()).putInt(layout.getTargetIndex());
+        for (int index = 0; index < layout.getVehicleCount(); index++) {
+            header.put((byte) layout.getLength(index))
+                    .put((byte) (layout.isHorizontal(index) ? 1 : 0))
+                    .put((byte) layout.getLane(index));
+        }
+        return header.array();
+    }
+
+    static String signature(byte[] header) {
+        long hash = 0x9E3779B97F4A7C15L;
+        for (byte b : header) {
+            hash = (hash ^ b) * 0x100000001B3L;
+        }
+        return Long.toHexString(hash);
+    }
+
+    // Writes to a temporary file first, so readers never see a partial table.
+    static void write(Path directory, Path file, ByteBuffer... parts) throws IOException {
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, "table-", ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            for (ByteBuffer part : parts) {
+                while (part.hasRemaining()) {
+                    channel.write(part);
+                }
+            }
+        }
+        try {
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    // Maps everything after the header read-only.
+    static MappedByteBuffer map(Path file, byte[] expectedHeader) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(expectedHeader.length);
+            while (header.hasRemaining()) {
+                if (channel.read(header) < 0) {
+                    break;
+                }
+            }
+            if (!Arrays.equals(header.array(), expectedHeader)) {
+                throw new IOException("Table file does not match its layout: " + file);
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, expectedHeader.length, channel.size() - expectedHeader.length);
+        }
+    }
+
+    // Maps a whole file read-write, creating it zero-filled with the given
+    // size if it is new or empty.
+    static MappedByteBuffer mapWritable(Path file, long size) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long length = channel.size() == 0 ? size : channel.size();
+            if (length > Integer.MAX_VALUE) {
+                throw new IOException("Table file is too large to map: " + file);
+            }
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package solver;
+
+// A move packed into an int: vehicle index, start and target position.
+public final class Move {
+    private Move() {
+    }
+
+    public static int of(int index, int from, int to) {
+        return (index << 8) | (from << 4) | to;
+    }
+
+    public static int vehicleIndex(int move) {
+        return move >>> 8;
+    }
+
+    public static int from(int move) {
+        return (move >>> 4) & 0xF;
+    }
+
+    public static int to(int move) {
+        return move & 0xF;
+    }
+
+    public static int delta(int move) {
+        return to(move) - from(move);
+    }
+
+    public static int reverse(int move) {
+        return of(vehicleIndex(move), to(move), from(move));
+    }
+}
@@ -0,0 +1,55 @@
+package solver;
+
+// For one board size, the range a vehicle can slide to in its lane, indexed
+// by vehicle length, position and the lane occupancy without the vehicle.
+class MoveTable {
+    private static final MoveTable[] TABLES = new MoveTable[BoardLayout.MAX_BOARD_SIZE + 1];
+
+    private final int size;
+    private final byte[] minPositions;
+    private final byte[] maxPositions;
+
+    static synchronized MoveTable forSize(int size) {
+        if (TABLES[size] == null) {
+            TABLES[size] = new MoveTable(size);
+        }
+        return TABLES[size];
+    }
+
+    private MoveTable(int size) {
+        this.size = size;
+        int entries = ((size + 1) * size) << size;
+        minPositions = new byte[entries];
+        maxPositions = new byte[entries];
+
+        for (int length = 1; length <= size; length++) {
+            for (int position = 0; position + length <= size; position++) {
+                for (int lane = 0; lane < 1 << size; lane++) {
+                    int min = position;
+                    while (min > 0 && (lane & (1 << (min - 1))) == 0) {
+                        min--;
+                    }
+                    int max = position;
+                    while (max + length < size && (lane & (1 << (max + length))) == 0) {
+                        max++;
+                    }
+                    int entry = index(length, position, lane);
+                    minPositions[entry] = (byte) min;
+                    maxPositions[entry] = (byte) max;
+                }
+            }
+        }
+    }
+
+    private int index(int length, int position, int lane) {
+        return ((length * size + position) << size) | lane;
+    }
+
+    int minPosition(int length, int position, int lane) {
+        return minPositions[index(length, position, lane)];
+    }
+
+    int maxPosition(int length, int position, int lane) {
+        return maxPositions[index(length, position, lane)];
+    }
+}
@@ -1,6 +1,7 @@
 package solver;
 
 import heuristics.Heuristic;
+import heuristics.IncrementalHeuristic;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -12,6 +13,18 @@ public class Node implements Comparable<Node> {
     private int g;
     private int h;
 
+    // Position inside a BucketQueue, owned by the queue.
+    Node bucketPrev;
+    Node bucketNext;
+    int bucketF;
+    int bucketH;
+
+    // What h was read from, when it came from an IncrementalHeuristic.
+    private static final ThreadLocal<long[][]> SCRATCH = ThreadLocal.withInitial(() -> new long[2][2]);
+    private boolean hasDependencies;
+    private long dependencyCells;
+    private long dependencyVehicles;
+
     public Node(Board board, Node parent, int g, int h) {
         this.board = board;
         this.parent = parent;
@@ -20,16 +33,55 @@ public class Node implements Comparable<Node> {
     }
 
     public List<Node> expand(Heuristic h){
-        List<Node> successors = new ArrayList<>();
-        for(Board successorBoard : board.expand()){
-            int tentativeG = g + 1;
-            int successorH = h.calculateH(successorBoard);
-            Node successor = new Node(successorBoard, this, tentativeG, successorH);
+        int[] moves = new int[board.getLayout().getMaxMoves()];
+        int count = board.generateMoves(moves);
+        List<Node> successors = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Node successor = child(moves[i]);
+            successor.evaluate(h, moves[i]);
             successors.add(successor);
         }
         return successors;
     }
 
+    // Successor for a single move from Board.generateMoves. The heuristic is
+    // left at zero so callers only pay for it once the node is kept.
+    public Node child(int move){
+        return new Node(board.applyMove(move), this, g + 1, 0);
+    }
+
+    // Computes h from scratch, recording its dependencies when the heuristic
+    // is incremental so that children can start from them.
+    public void evaluate(Heuristic heuristic){
+        if (heuristic instanceof IncrementalHeuristic) {
+            long[] dependencies = SCRATCH.get()[0];
+            h = ((IncrementalHeuristic) heuristic).calculateH(board, dependencies);
+            keepDependencies(dependencies);
+        } else {
+            h = heuristic.calculateH(board);
+        }
+    }
+
+    // Computes h of a node created by child(move), reusing the parent's
+    // evaluation where the heuristic allows it.
+    public void evaluate(Heuristic heuristic, int move){
+        if (heuristic instanceof IncrementalHeuristic && parent != null && parent.hasDependencies) {
+            long[][] scratch = SCRATCH.get();
+            scratch[1][0] = parent.dependencyCells;
+            scratch[1][1] = parent.dependencyVehicles;
+            h = ((IncrementalHeuristic) heuristic).calculateH(board, move, parent.h, scratch[1], scratch[0]);
+            keepDependencies(scratch[0]);
+        } else {
+            evaluate(heuristic);
+        }
+    }
+
+    private void keepDependencies(long[] dependencies){
+        hasDependencies = true;
+        dependencyCells = dependencies[0];
+        dependencyVehicles = dependencies[1];
+    }
+
     @Override
     public int compareTo(Node other) {
         int fComparison = Integer.compare(this.getF(), other.getF());
@@ -0,0 +1,23 @@
+package solver;
+
+public interface OpenList<T> {
+    void add(T element);
+
+    T poll();
+
+    // Returns the first element without removing it, or null when empty.
+    T peek();
+
+    boolean contains(T element);
+
+    T getElement(T element);
+
+    // Restores the ordering after the priority of a queued element changed.
+    void update(T element);
+
+    boolean isEmpty();
+
+    int size();
+
+    void clear();
+}
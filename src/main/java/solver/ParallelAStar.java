@@ -0,0 +1,217 @@
+package solver;
+
+import heuristics.Heuristic;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+// Hash-distributed A*: every state is owned by the worker its Zobrist key maps to.
+// Workers keep private open lists and g-tables and send successors owned by
+// someone else through lock-free mailboxes. The first goal found is only an
+// upper bound; the search stops once no worker holds a node with f below
+// the best goal cost and no successor is still in flight, which keeps the
+// result optimal for the same heuristics plain A* is optimal for.
+// The heuristic is shared between the workers and must be thread-safe.
+// Idle workers park with an exponential backoff instead of spinning.
+public class ParallelAStar {
+    private static final long MIN_IDLE_NANOS = 1_000;
+    private static final long MAX_IDLE_NANOS = 1_000_000;
+
+    private final int numWorkers;
+    private int[] nodesExpandedPerWorker;
+
+    private List<ConcurrentLinkedQueue<Node>> mailboxes;
+    private AtomicReference<Node> incumbent;
+    // Active workers plus messages sent but not yet processed; zero means done.
+    private AtomicLong activity;
+
+    public ParallelAStar() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public ParallelAStar(int numWorkers) {
+        if (numWorkers < 1) {
+            throw new IllegalArgumentException("Need at least one worker: " + numWorkers);
+        }
+        this.numWorkers = numWorkers;
+        this.nodesExpandedPerWorker = new int[numWorkers];
+    }
+
+    public List<Board> solve(Board initialBoard, Heuristic heuristic) {
+        mailboxes = new ArrayList<>(numWorkers);
+        for (int i = 0; i < numWorkers; i++) {
+            mailboxes.add(new ConcurrentLinkedQueue<>());
+        }
+        nodesExpandedPerWorker = new int[numWorkers];
+        incumbent = new AtomicReference<>();
+        activity = new AtomicLong();
+
+        Node root = new Node(initialBoard, null, 0, 0);
+        root.evaluate(heuristic);
+        activity.incrementAndGet();
+        mailboxes.get(owner(initialBoard.getZobristKey())).add(root);
+
+        Thread[] threads = new Thread[numWorkers];
+        for (int i = 0; i < numWorkers; i++) {
+            Worker worker = new Worker(i, heuristic, initialBoard.getLayout());
+            threads[i] = new Thread(worker, "hda-worker-" + i);
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Parallel search interrupted", e);
+            }
+        }
+
+        Node goal = incumbent.get();
+        return goal == null ? null : constructPath(goal);
+    }
+
+    private int incumbentCost() {
+        Node goal = incumbent.get();
+        return goal == null ? Integer.MAX_VALUE : goal.getG();
+    }
+
+    // Uses the high half of the Zobrist key so ownership does not correlate
+    // with the hash-table slots inside each worker.
+    private int owner(long zobristKey) {
+        return (int) ((zobristKey >>> 32) % numWorkers);
+    }
+
+    private List<Board> constructPath(Node node) {
+        List<Board> path = new ArrayList<>();
+        while (node != null) {
+            path.add(0, node.getBoard());
+            node = node.getParent();
+        }
+        return path;
+    }
+
+    public int[] getNodesExpandedPerWorker() {
+        return nodesExpandedPerWorker.clone();
+    }
+
+    public int getNodesExpanded() {
+        int total = 0;
+        for (int nodes : nodesExpandedPerWorker) {
+            total += nodes;
+        }
+        return total;
+    }
+
+    private class Worker implements Runnable {
+        private final int id;
+        private final Heuristic heuristic;
+        private final ConcurrentLinkedQueue<Node> mailbox;
+        private final OpenList<Node> openQueue;
+        private final StateTable bestG;
+        private final int[] moves;
+
+        Worker(int id, Heuristic heuristic, BoardLayout layout) {
+            this.id = id;
+            this.heuristic = heuristic;
+            this.mailbox = mailboxes.get(id);
+            this.openQueue = new IndexedPriorityQueue<>(Comparator.comparingInt(Node::getF));
+            this.bestG = new StateTable();
+            this.moves = new int[layout.getMaxMoves()];
+        }
+
+        @Override
+        public void run() {
+            boolean active = false;
+            long idleNanos = MIN_IDLE_NANOS;
+            while (true) {
+                if (!active) {
+                    if (mailbox.isEmpty() && !hasWork()) {
+                        if (activity.get() == 0) {
+                            return;
+                        }
+                        LockSupport.parkNanos(idleNanos);
+                        idleNanos = Math.min(idleNanos * 2, MAX_IDLE_NANOS);
+                        continue;
+                    }
+                    activity.incrementAndGet();
+                    active = true;
+                    idleNanos = MIN_IDLE_NANOS;
+                }
+
+                Node message;
+                while ((message = mailbox.poll()) != null) {
+                    receive(message);
+                    activity.decrementAndGet();
+                }
+
+                if (hasWork()) {
+                    expand(openQueue.poll());
+                } else if (mailbox.isEmpty()) {
+                    activity.decrementAndGet();
+                    active = false;
+                }
+            }
+        }
+
+        private boolean hasWork() {
+            Node next = openQueue.peek();
+            return next != null && next.getF() < incumbentCost();
+        }
+
+        private void receive(Node node) {
+            long key = node.getBoard().getStateKey();
+            int knownG = bestG.depthOf(key);
+            if (knownG != -1 && knownG <= node.getG()) {
+                return;
+            }
+            bestG.put(key, StateTable.NO_PARENT, node.getG());
+
+            Node existing = openQueue.getElement(node);
+            if (existing == null) {
+                openQueue.add(node);
+            } else {
+                existing.setG(node.getG());
+                existing.setH(node.getH());
+                existing.setParent(node.getParent());
+                openQueue.update(existing);
+            }
+        }
+
+        private void expand(Node current) {
+            nodesExpandedPerWorker[id]++;
+
+            if (current.getBoard().isGoal()) {
+                Node best;
+                do {
+                    best = incumbent.get();
+                } while ((best == null || current.getG() < best.getG()) && !incumbent.compareAndSet(best, current));
+                return;
+            }
+
+            // Successors this worker owns and already reached as cheaply are
+            // dropped before a board is built or h is computed.
+            Board board = current.getBoard();
+            int count = board.generateMoves(moves);
+            for (int i = 0; i < count; i++) {
+                int target = owner(board.childZobristKey(moves[i]));
+                if (target == id) {
+                    int knownG = bestG.depthOf(board.childStateKey(moves[i]));
+                    if (knownG != -1 && knownG <= current.getG() + 1) {
+                        continue;
+                    }
+                }
+                Node successor = current.child(moves[i]);
+                successor.evaluate(heuristic, moves[i]);
+                if (target == id) {
+                    receive(successor);
+                } else {
+                    activity.incrementAndGet();
+                    mailboxes.get(target).add(successor);
+                }
+            }
+        }
+    }
+}
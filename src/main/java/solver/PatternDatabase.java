@@ -0,0 +1,142 @@
+package solver;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Exact goal distances of every placement of a small pattern layout, found by
+// a breadth-first search backwards from all of its goal states. Placements
+// are ranked in mixed radix (one digit per vehicle position), so the table
+// is a flat byte array. It is written to a cache directory and memory mapped
+// from there by later runs; databases are also shared inside the process.
+public class PatternDatabase {
+    public static final int UNREACHABLE = 0xFF;
+    private static final int MAX_DISTANCE = UNREACHABLE - 1;
+    private static final int MAGIC = 0x50444231;
+    private static final Map<String, PatternDatabase> LOADED = new ConcurrentHashMap<>();
+
+    private final BoardLayout layout;
+    private final int[] radix;
+    private final ByteBuffer distances;
+
+    private PatternDatabase(BoardLayout layout, ByteBuffer distances) {
+        this.layout = layout;
+        this.radix = radix(layout);
+        this.distances = distances;
+    }
+
+    // Number of table entries the pattern needs, or -1 past Integer.MAX_VALUE.
+    public static long tableSize(BoardLayout layout) {
+        long size = 1;
+        for (int index = 0; index < layout.getVehicleCount(); index++) {
+            size *= layout.maxPosition(index) + 1;
+            if (size > Integer.MAX_VALUE) {
+                return -1;
+            }
+        }
+        return size;
+    }
+
+    // Loads the database of the pattern from the directory, building and
+    // storing it first if needed. A null directory keeps it in memory only.
+    public static PatternDatabase load(BoardLayout layout, Path directory) {
+        byte[] header = MappedFiles.header(MAGIC, layout);
+        String signature = MappedFiles.signature(header);
+        return LOADED.computeIfAbsent(directory + "/" + signature, key -> {
+            if (directory == null) {
+                return new PatternDatabase(layout, ByteBuffer.wrap(build(layout)));
+            }
+            try {
+                Path file = directory.resolve("pdb-" + signature + ".bin");
+                if (!Files.exists(file)) {
+                    MappedFiles.write(directory, file, ByteBuffer.wrap(header), ByteBuffer.wrap(build(layout)));
+                }
+                ByteBuffer distances = MappedFiles.map(file, header);
+                if (distances.capacity() != tableSize(layout)) {
+                    throw new IOException("Pattern database has the wrong size: " + file);
+                }
+                return new PatternDatabase(layout, distances);
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to load pattern database " + signature, e);
+            }
+        });
+    }
+
+    public BoardLayout getLayout() {
+        return layout;
+    }
+
+    // Distance of the placement (packed like Board.getStateKey of the pattern
+    // layout), or UNREACHABLE when no goal can be reached from it.
+    public int distance(long positions) {
+        return distances.get(rank(radix, positions)) & 0xFF;
+    }
+
+    public int size() {
+        return distances.capacity();
+    }
+
+    private static int rank(int[] radix, long positions) {
+        int rank = 0;
+        for (int index = 0; index < radix.length; index++) {
+            rank = rank * radix[index] + BoardLayout.position(positions, index);
+        }
+        return rank;
+    }
+
+    private static long unrank(int[] radix, int rank) {
+        long positions = 0L;
+        for (int index = radix.length - 1; index >= 0; index--) {
+            positions = BoardLayout.withPosition(positions, index, rank % radix[index]);
+            rank /= radix[index];
+        }
+        return positions;
+    }
+
+    private static int[] radix(BoardLayout layout) {
+        int[] radix = new int[layout.getVehicleCount()];
+        for (int index = 0; index < radix.length; index++) {
+            radix[index] = layout.maxPosition(index) + 1;
+        }
+        return radix;
+    }
+
+    private static byte[] build(BoardLayout layout) {
+        long size = tableSize(layout);
+        if (size < 0) {
+            throw new IllegalArgumentException("Pattern is too large for a table: " + layout.getVehicleCount() + " vehicles");
+        }
+        int[] radix = radix(layout);
+        byte[] distances = new byte[(int) size];
+        Arrays.fill(distances, (byte) UNREACHABLE);
+        int[] queue = new int[(int) size];
+        int head = 0;
+        int tail = 0;
+
+        for (long goal : GoalStates.enumerate(layout, Integer.MAX_VALUE)) {
+            int rank = rank(radix, goal);
+            distances[rank] = 0;
+            queue[tail++] = rank;
+        }
+
+        int[] moves = new int[layout.getMaxMoves()];
+        while (head < tail) {
+            int rank = queue[head++];
+            int distance = Math.min((distances[rank] & 0xFF) + 1, MAX_DISTANCE);
+            Board board = new Board(layout, unrank(radix, rank));
+            int count = board.generateMoves(moves);
+            for (int i = 0; i < count; i++) {
+                int childRank = rank(radix, board.childStateKey(moves[i]));
+                if ((distances[childRank] & 0xFF) == UNREACHABLE) {
+                    distances[childRank] = (byte) distance;
+                    queue[tail++] = childRank;
+                }
+            }
+        }
+        return distances;
+    }
+}
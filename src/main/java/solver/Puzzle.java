@@ -1,6 +1,8 @@
 package solver;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -17,6 +19,11 @@ public class Puzzle {
         puzzleBoards = readFile(is);
     }
 
+    // Reads a puzzle file from disk, such as one written by write.
+    public Puzzle(Path file) throws IOException {
+        puzzleBoards = readFile(Files.newInputStream(file));
+    }
+
     private List<Board> readFile(InputStream inputStream) {
         List<Board> boards = new ArrayList<>();
 
@@ -65,6 +72,39 @@ public class Puzzle {
 
         return boards;
     }
+
+    // Writes boards in the format read above, named Puzzle-<number> from
+    // firstNumber on. Read the file back with Puzzle(Path).
+    public static void write(List<Board> boards, int firstNumber, Path file) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            for (int i = 0; i < boards.size(); i++) {
+                writer.write(format("Puzzle-" + (firstNumber + i), boards.get(i)));
+                writer.newLine();
+            }
+        }
+    }
+
+    // The red car is written first, so it gets id 1 when the file is read back.
+    public static String format(String name, Board board) {
+        BoardLayout layout = board.getLayout();
+        int target = layout.getTargetIndex();
+        StringBuilder text = new StringBuilder(name).append('\n').append(layout.getBoardSize()).append('\n');
+        if (target >= 0) {
+            appendVehicle(text, layout.toVehicle(target, board.getPosition(target)));
+        }
+        for (int index = 0; index < layout.getVehicleCount(); index++) {
+            if (index != target) {
+                appendVehicle(text, layout.toVehicle(index, board.getPosition(index)));
+            }
+        }
+        return text.toString();
+    }
+
+    private static void appendVehicle(StringBuilder text, Vehicle vehicle) {
+        text.append(vehicle.getStartX()).append(' ').append(vehicle.getStartY()).append(' ')
+                .append(vehicle.getLength()).append(' ').append(vehicle.getIsHorizontal() ? 'h' : 'v').append('\n');
+    }
+
     public Board getRandomPuzzleBoard(){
         return puzzleBoards.get((int)(Math.random() * puzzleBoards.size()));
     }
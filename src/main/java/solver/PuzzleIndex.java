@@ -0,0 +1,245 @@
+package solver;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.file.*;
+
+// Remembers the canonical keys (see CanonicalKey) of generated puzzles
+// across runs, in two memory mapped files in a directory. A Bloom filter
+// answers most lookups of new puzzles without touching the exact index, an
+// open addressing table of key records that is rewritten at twice the size
+// when it is half full. Only the pages in use are kept in memory, not the
+// keys. Methods are synchronized; the directory is meant for one process at
+// a time.
+public class PuzzleIndex implements Closeable {
+    public static final long DEFAULT_EXPECTED_PUZZLES = 1 << 20;
+    private static final int BLOOM_MAGIC = 0x50424C31;
+    private static final int INDEX_MAGIC = 0x50494431;
+    private static final int HASHES = 7;
+    private static final int BITS_PER_PUZZLE = 10;
+    private static final long MIN_BLOOM_BITS = 1L << 16;
+    private static final long MAX_BLOOM_BITS = 1L << 33;
+    // Magic, hash count or record size, bit count or capacity, and size.
+    private static final int HEADER_BYTES = 2 * Integer.BYTES + 2 * Long.BYTES;
+    private static final int RECORD_BYTES = 32;
+    private static final int MIN_CAPACITY = 1 << 10;
+    private static final int MAX_CAPACITY = 1 << 25;
+
+    private final Path directory;
+    private final MappedByteBuffer bloom;
+    private final long bloomBits;
+    private MappedByteBuffer index;
+    private int capacity;
+    private int size;
+
+    private long lookups;
+    private long duplicates;
+    private long bloomRejections;
+    private long falsePositives;
+
+    private PuzzleIndex(Path directory, MappedByteBuffer bloom, MappedByteBuffer index) {
+        this.directory = directory;
+        this.bloom = bloom;
+        this.bloomBits = bloom.getLong(Integer.BYTES * 2);
+        this.index = index;
+        this.capacity = (int) index.getLong(Integer.BYTES * 2);
+        this.size = (int) index.getLong(Integer.BYTES * 2 + Long.BYTES);
+    }
+
+    public static PuzzleIndex open(Path directory) throws IOException {
+        return open(directory, DEFAULT_EXPECTED_PUZZLES);
+    }
+
+    // The Bloom filter is sized for expectedPuzzles when it is created;
+    // beyond that it only lets more lookups through to the index.
+    public static PuzzleIndex open(Path directory, long expectedPuzzles) throws IOException {
+        Path bloomFile = directory.resolve("bloom.bin");
+        Path indexFile = directory.resolve("index.bin");
+        // A Bloom filter that does not match the index would let duplicates through.
+        boolean rebuildBloom = !Files.exists(bloomFile) || !Files.exists(indexFile);
+        if (rebuildBloom) {
+            Files.deleteIfExists(bloomFile);
+        }
+
+        long bits = Long.highestOneBit(Math.max(expectedPuzzles * BITS_PER_PUZZLE, MIN_BLOOM_BITS) * 2 - 1);
+        bits = Math.min(bits, MAX_BLOOM_BITS);
+        MappedByteBuffer bloom = mapTable(bloomFile, BLOOM_MAGIC, HASHES, bits, bits / Byte.SIZE);
+        MappedByteBuffer index = mapTable(indexFile, INDEX_MAGIC, RECORD_BYTES, MIN_CAPACITY, (long) MIN_CAPACITY * RECORD_BYTES);
+
+        PuzzleIndex puzzleIndex = new PuzzleIndex(directory, bloom, index);
+        if (rebuildBloom) {
+            puzzleIndex.rebuildBloom();
+        }
+        return puzzleIndex;
+    }
+
+    private static MappedByteBuffer mapTable(Path file, int magic, int parameter, long count, long bodyBytes) throws IOException {
+        boolean exists = Files.exists(file);
+        MappedByteBuffer buffer = MappedFiles.mapWritable(file, HEADER_BYTES + bodyBytes);
+        if (!exists) {
+            buffer.putInt(0, magic).putInt(Integer.BYTES, parameter).putLong(Integer.BYTES * 2, count);
+        } else if (buffer.getInt(0) != magic || buffer.getInt(Integer.BYTES) != parameter) {
+            throw new IOException("Not a puzzle index file: " + file);
+        }
+        return buffer;
+    }
+
+    // Records the key and returns true, or returns false if it was known.
+    public synchronized boolean add(CanonicalKey key) {
+        lookups++;
+        long hash = key.longHash();
+        if (mightContain(hash)) {
+            if (find(key, hash) >= 0) {
+                duplicates++;
+                return false;
+            }
+            falsePositives++;
+        } else {
+            bloomRejections++;
+        }
+
+        if ((size + 1) * 2L > capacity) {
+            grow();
+        }
+        insert(index, capacity, key, hash);
+        addToBloom(hash);
+        size++;
+        index.putLong(Integer.BYTES * 2 + Long.BYTES, size);
+        return true;
+    }
+
+    public synchronized boolean contains(CanonicalKey key) {
+        long hash = key.longHash();
+        return mightContain(hash) && find(key, hash) >= 0;
+    }
+
+    private boolean mightContain(long hash) {
+        long step = step(hash);
+        for (int i = 0; i < HASHES; i++) {
+            long bit = (hash + i * step) & (bloomBits - 1);
+            int offset = HEADER_BYTES + (int) (bit >>> 3);
+            if ((bloom.get(offset) & (1 << (bit & 7))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void addToBloom(long hash) {
+        long step = step(hash);
+        for (int i = 0; i < HASHES; i++) {
+            long bit = (hash + i * step) & (bloomBits - 1);
+            int offset = HEADER_BYTES + (int) (bit >>> 3);
+            bloom.put(offset, (byte) (bloom.get(offset) | (1 << (bit & 7))));
+        }
+    }
+
+    // Second hash of the double hashing scheme; odd, so it cycles all bits.
+    private static long step(long hash) {
+        return Long.rotateLeft(hash * 0xC2B2AE3D27D4EB4FL, 31) | 1L;
+    }
+
+    // Record offset of the key, or -1. Empty records have no occupied cells.
+    private int find(CanonicalKey key, long hash) {
+        int mask = capacity - 1;
+        for (int slot = (int) hash & mask; ; slot = (slot + 1) & mask) {
+            int offset = HEADER_BYTES + slot * RECORD_BYTES;
+            if (index.getLong(offset) == 0L) {
+                return -1;
+            }
+            if (key.equals(CanonicalKey.readFrom(index.duplicate().position(offset)))) {
+                return offset;
+            }
+        }
+    }
+
+    private static void insert(ByteBuffer table, int capacity, CanonicalKey key, long hash) {
+        int mask = capacity - 1;
+        int slot = (int) hash & mask;
+        while (table.getLong(HEADER_BYTES + slot * RECORD_BYTES) != 0L) {
+            slot = (slot + 1) & mask;
+        }
+        key.writeTo(table.duplicate().position(HEADER_BYTES + slot * RECORD_BYTES));
+    }
+
+    // Writes the doubled table to a new file and moves it over the old one.
+    private void grow() {
+        if (capacity >= MAX_CAPACITY) {
+            throw new IllegalStateException("Puzzle index is full: " + size + " puzzles");
+        }
+        int newCapacity = capacity * 2;
+        try {
+            Path temp = Files.createTempFile(directory, "index-", ".tmp");
+            Files.delete(temp);
+            MappedByteBuffer table = mapTable(temp, INDEX_MAGIC, RECORD_BYTES, newCapacity, (long) newCapacity * RECORD_BYTES);
+            for (int slot = 0; slot < capacity; slot++) {
+                int offset = HEADER_BYTES + slot * RECORD_BYTES;
+                if (index.getLong(offset) != 0L) {
+                    CanonicalKey key = CanonicalKey.readFrom(index.duplicate().position(offset));
+                    insert(table, newCapacity, key, key.longHash());
+                }
+            }
+            table.putLong(Integer.BYTES * 2 + Long.BYTES, size);
+            table.force();
+            Path file = directory.resolve("index.bin");
+            try {
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            index = table;
+            capacity = newCapacity;
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to grow the puzzle index in " + directory, e);
+        }
+    }
+
+    private void rebuildBloom() {
+        for (int slot = 0; slot < capacity; slot++) {
+            int offset = HEADER_BYTES + slot * RECORD_BYTES;
+            if (index.getLong(offset) != 0L) {
+                addToBloom(CanonicalKey.readFrom(index.duplicate().position(offset)).longHash());
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized long getLookups() {
+        return lookups;
+    }
+
+    public synchronized long getDuplicates() {
+        return duplicates;
+    }
+
+    // New keys the Bloom filter recognized without a look at the index.
+    public synchronized long getBloomRejections() {
+        return bloomRejections;
+    }
+
+    public synchronized long getFalsePositives() {
+        return falsePositives;
+    }
+
+    // Writes both tables to disk.
+    public synchronized void force() {
+        bloom.force();
+        index.force();
+    }
+
+    @Override
+    public void close() {
+        force();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%d puzzles, %d lookups, %d duplicates, %d settled by the Bloom filter, %d false positives",
+                size, lookups, duplicates, bloomRejections, falsePositives);
+    }
+}
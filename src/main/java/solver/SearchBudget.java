@@ -0,0 +1,89 @@
+package solver;
+
+// Limits for a single search: expanded nodes, stored states (open and
+// closed together, which is what the search's memory grows with) and
+// wall-clock time.
+public final class SearchBudget {
+    public static final SearchBudget UNLIMITED = new SearchBudget(Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE);
+    private static final int CLOCK_CHECK_INTERVAL = 256;
+
+    private final long maxNodes;
+    private final long maxStates;
+    private final long maxNanos;
+
+    private SearchBudget(long maxNodes, long maxStates, long maxNanos) {
+        if (maxNodes < 1 || maxStates < 1 || maxNanos < 1) {
+            throw new IllegalArgumentException("Search budget must be positive: nodes=" + maxNodes
+                    + ", states=" + maxStates + ", nanos=" + maxNanos);
+        }
+        this.maxNodes = maxNodes;
+        this.maxStates = maxStates;
+        this.maxNanos = maxNanos;
+    }
+
+    public static SearchBudget ofNodes(long maxNodes) {
+        return UNLIMITED.withNodes(maxNodes);
+    }
+
+    public static SearchBudget ofStates(long maxStates) {
+        return UNLIMITED.withStates(maxStates);
+    }
+
+    public static SearchBudget ofMillis(long maxMillis) {
+        return UNLIMITED.withMillis(maxMillis);
+    }
+
+    public SearchBudget withNodes(long maxNodes) {
+        return new SearchBudget(maxNodes, maxStates, maxNanos);
+    }
+
+    public SearchBudget withStates(long maxStates) {
+        return new SearchBudget(maxNodes, maxStates, maxNanos);
+    }
+
+    public SearchBudget withMillis(long maxMillis) {
+        long maxNanos = maxMillis >= Long.MAX_VALUE / 1_000_000L ? Long.MAX_VALUE : maxMillis * 1_000_000L;
+        return new SearchBudget(maxNodes, maxStates, maxNanos);
+    }
+
+    public boolean isUnlimited() {
+        return maxNodes == Long.MAX_VALUE && maxStates == Long.MAX_VALUE && maxNanos == Long.MAX_VALUE;
+    }
+
+    public long getMaxNodes() {
+        return maxNodes;
+    }
+
+    public long getMaxStates() {
+        return maxStates;
+    }
+
+    public long getMaxMillis() {
+        return maxNanos == Long.MAX_VALUE ? Long.MAX_VALUE : maxNanos / 1_000_000L;
+    }
+
+    // Whether a search that started at startTime (System.nanoTime), has
+    // expanded nodesExpanded nodes and holds statesStored states must stop.
+    // The clock is only read every CLOCK_CHECK_INTERVAL nodes.
+    public boolean isExhausted(long nodesExpanded, long statesStored, long startTime) {
+        if (nodesExpanded >= maxNodes || statesStored >= maxStates) {
+            return true;
+        }
+        if (nodesExpanded % CLOCK_CHECK_INTERVAL != 0) {
+            return false;
+        }
+        // An interrupted thread is out of time as well.
+        return Thread.currentThread().isInterrupted()
+                || maxNanos != Long.MAX_VALUE && System.nanoTime() - startTime >= maxNanos;
+    }
+
+    @Override
+    public String toString() {
+        if (isUnlimited()) {
+            return "unlimited";
+        }
+        return "nodes=" + (maxNodes == Long.MAX_VALUE ? "-" : maxNodes)
+                + " states=" + (maxStates == Long.MAX_VALUE ? "-" : maxStates)
+                + " ms=" + (maxNanos == Long.MAX_VALUE ? "-" : getMaxMillis());
+    }
+}
@@ -0,0 +1,73 @@
+package solver;
+
+import java.util.List;
+
+// Outcome of a budgeted search. UNSOLVABLE means the whole reachable
+// component was explored without finding a goal; BUDGET_EXHAUSTED means the
+// search stopped first and says nothing about solvability.
+public class SearchResult {
+    public enum Status {
+        SOLVED,
+        UNSOLVABLE,
+        BUDGET_EXHAUSTED
+    }
+
+    private final Status status;
+    private final List<Board> solutionPath;
+    private final int nodesExpanded;
+    private final int statesStored;
+    private final long elapsedNanos;
+
+    public SearchResult(Status status, List<Board> solutionPath, int nodesExpanded, int statesStored, long elapsedNanos) {
+        this.status = status;
+        this.solutionPath = solutionPath;
+        this.nodesExpanded = nodesExpanded;
+        this.statesStored = statesStored;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public boolean isSolved() {
+        return status == Status.SOLVED;
+    }
+
+    public boolean isUnsolvable() {
+        return status == Status.UNSOLVABLE;
+    }
+
+    public boolean isBudgetExhausted() {
+        return status == Status.BUDGET_EXHAUSTED;
+    }
+
+    // Null unless solved.
+    public List<Board> getSolutionPath() {
+        return solutionPath;
+    }
+
+    // -1 unless solved.
+    public int getDepth() {
+        return solutionPath == null ? -1 : solutionPath.size() - 1;
+    }
+
+    public int getNodesExpanded() {
+        return nodesExpanded;
+    }
+
+    // Open and closed states held when the search ended.
+    public int getStatesStored() {
+        return statesStored;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return status + (isSolved() ? " in " + getDepth() + " moves" : "")
+                + " (" + nodesExpanded + " nodes, " + statesStored + " states, " + elapsedNanos / 1_000_000 + "ms)";
+    }
+}
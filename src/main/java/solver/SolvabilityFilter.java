@@ -0,0 +1,259 @@
+package solver;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Cheap classification of boards before they reach a solver. In order:
+//  - solved boards, and boards whose red car can drive straight out;
+//  - static deadlocks: a horizontal vehicle ahead of the red car in its row,
+//    or a column ahead of it whose vertical vehicles can never all clear the
+//    exit row. Vertical vehicles never pass each other and never cross a row
+//    filled with horizontal vehicles, so each column reduces to a small
+//    signature whose verdict is memoized;
+//  - a breadth-first flood fill of the board's reachable component, up to
+//    floodLimit states. When the whole component is seen without a goal,
+//    all of its states are remembered as unsolvable, so later boards from
+//    the same component (mutations, retries) are rejected by a lookup.
+// Everything else is UNKNOWN and needs a real search. Instances can be
+// shared between threads.
+public class SolvabilityFilter {
+    public static final int DEFAULT_FLOOD_LIMIT = 1 << 10;
+    public static final int DEFAULT_MEMO_CAPACITY = 1 << 20;
+
+    public enum Verdict {
+        SOLVED(0),
+        TRIVIAL(1),
+        UNSOLVABLE(-1),
+        UNKNOWN(-1);
+
+        private final int depth;
+
+        Verdict(int depth) {
+            this.depth = depth;
+        }
+
+        // Optimal number of moves, or -1 when it is not known.
+        public int getDepth() {
+            return depth;
+        }
+
+        // Whether a solver would only confirm what the filter already knows.
+        public boolean isDecided() {
+            return this != UNKNOWN;
+        }
+    }
+
+    private final int floodLimit;
+    private final int memoCapacity;
+    private final Map<Long, Boolean> columns = new ConcurrentHashMap<>();
+    private final LongHashSet unsolvableStates = new LongHashSet();
+
+    private final LongAdder classified = new LongAdder();
+    private final LongAdder solved = new LongAdder();
+    private final LongAdder trivial = new LongAdder();
+    private final LongAdder deadlocked = new LongAdder();
+    private final LongAdder closed = new LongAdder();
+    private final LongAdder memoHits = new LongAdder();
+
+    public SolvabilityFilter() {
+        this(DEFAULT_FLOOD_LIMIT, DEFAULT_MEMO_CAPACITY);
+    }
+
+    // A flood limit of 0 turns the flood fill off.
+    public SolvabilityFilter(int floodLimit, int memoCapacity) {
+        this.floodLimit = floodLimit;
+        this.memoCapacity = memoCapacity;
+    }
+
+    public Verdict classify(Board board) {
+        classified.increment();
+        BoardLayout layout = board.getLayout();
+        int target = layout.getTargetIndex();
+        // Stacked vehicles break the reasoning below.
+        if (target < 0 || !layout.isHorizontal(target) || board.hasOverlappingVehicles()) {
+            return Verdict.UNKNOWN;
+        }
+        if (board.isGoal()) {
+            solved.increment();
+            return Verdict.SOLVED;
+        }
+
+        int size = layout.getBoardSize();
+        int exitRow = layout.getLane(target);
+        int redEnd = board.getPosition(target) + layout.getLength(target);
+        long path = 0L;
+        for (int x = redEnd; x < size; x++) {
+            path |= layout.cellBit(x, exitRow);
+        }
+        if ((board.getOccupancy() & path) == 0) {
+            trivial.increment();
+            return Verdict.TRIVIAL;
+        }
+
+        if (isDeadlocked(board, target, exitRow, redEnd)) {
+            deadlocked.increment();
+            return Verdict.UNSOLVABLE;
+        }
+
+        synchronized (unsolvableStates) {
+            if (unsolvableStates.contains(board.getZobristKey())) {
+                memoHits.increment();
+                closed.increment();
+                return Verdict.UNSOLVABLE;
+            }
+        }
+        if (floodLimit > 0 && isClosedComponent(board)) {
+            closed.increment();
+            return Verdict.UNSOLVABLE;
+        }
+        return Verdict.UNKNOWN;
+    }
+
+    private boolean isDeadlocked(Board board, int target, int exitRow, int redEnd) {
+        BoardLayout layout = board.getLayout();
+        int size = layout.getBoardSize();
+        for (int index : layout.getRowVehicles(exitRow)) {
+            if (index != target && board.getPosition(index) >= redEnd) {
+                return true;
+            }
+        }
+
+        // Rows packed with horizontal vehicles can never be crossed.
+        int walls = 0;
+        for (int row = 0; row < size; row++) {
+            int filled = 0;
+            for (int index : layout.getRowVehicles(row)) {
+                filled += layout.getLength(index);
+            }
+            if (filled == size) {
+                walls |= 1 << row;
+            }
+        }
+        int low = exitRow;
+        while (low > 0 && (walls & (1 << (low - 1))) == 0) {
+            low--;
+        }
+        int high = exitRow;
+        while (high < size - 1 && (walls & (1 << (high + 1))) == 0) {
+            high++;
+        }
+
+        for (int column = redEnd; column < size; column++) {
+            if (!canClearExitRow(board, column, exitRow, low, high)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Signature: segment bounds, exit row, then the lengths of the column's
+    // vehicles inside the segment from top to bottom.
+    private boolean canClearExitRow(Board board, int column, int exitRow, int low, int high) {
+        BoardLayout layout = board.getLayout();
+        int[] vehicles = layout.getColumnVehicles(column);
+        if (vehicles.length == 0) {
+            return true;
+        }
+        int[] lengths = new int[vehicles.length];
+        int count = 0;
+        for (int top = low; top <= high; top++) {
+            for (int index : vehicles) {
+                if (board.getPosition(index) == top && top + layout.getLength(index) - 1 <= high) {
+                    lengths[count++] = layout.getLength(index);
+                }
+            }
+        }
+
+        long signature = low | high << 4 | exitRow << 8 | count << 12;
+        for (int i = 0; i < count; i++) {
+            signature |= (long) lengths[i] << (16 + 4 * i);
+        }
+        Boolean known = columns.get(signature);
+        if (known != null) {
+            memoHits.increment();
+            return known;
+        }
+
+        // Some prefix of the vehicles has to fit above the exit row and the
+        // rest below it.
+        int total = 0;
+        for (int i = 0; i < count; i++) {
+            total += lengths[i];
+        }
+        boolean clearable = false;
+        int above = 0;
+        for (int split = 0; split <= count && !clearable; split++) {
+            clearable = above <= exitRow - low && total - above <= high - exitRow;
+            if (split < count) {
+                above += lengths[split];
+            }
+        }
+        columns.put(signature, clearable);
+        return clearable;
+    }
+
+    private boolean isClosedComponent(Board board) {
+        BoardLayout layout = board.getLayout();
+        LongHashSet visited = new LongHashSet();
+        LongList queue = new LongList();
+        int[] moves = new int[layout.getMaxMoves()];
+        visited.add(board.getStateKey());
+        queue.add(board.getStateKey());
+        for (int head = 0; head < queue.size(); head++) {
+            Board state = new Board(layout, queue.get(head));
+            if (state.isGoal()) {
+                return false;
+            }
+            int count = state.generateMoves(moves);
+            for (int i = 0; i < count; i++) {
+                long child = state.childStateKey(moves[i]);
+                if (visited.add(child)) {
+                    if (visited.size() > floodLimit) {
+                        return false;
+                    }
+                    queue.add(child);
+                }
+            }
+        }
+
+        synchronized (unsolvableStates) {
+            if (unsolvableStates.size() + queue.size() > memoCapacity) {
+                unsolvableStates.clear();
+            }
+            for (int i = 0; i < queue.size(); i++) {
+                unsolvableStates.add(layout.zobrist(queue.get(i)));
+            }
+        }
+        return true;
+    }
+
+    public long getClassified() {
+        return classified.sum();
+    }
+
+    // Boards a solver did not have to look at.
+    public long getAvoidedSolves() {
+        return solved.sum() + trivial.sum() + deadlocked.sum() + closed.sum();
+    }
+
+    public long getDeadlocks() {
+        return deadlocked.sum();
+    }
+
+    // Boards found in a closed component without a goal.
+    public long getClosedComponents() {
+        return closed.sum();
+    }
+
+    // Column signatures and component states answered from memory.
+    public long getMemoHits() {
+        return memoHits.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("classified=%d avoided=%d (solved=%d trivial=%d deadlocked=%d closed components=%d) memo hits=%d",
+                getClassified(), getAvoidedSolves(), solved.sum(), trivial.sum(), deadlocked.sum(), closed.sum(), getMemoHits());
+    }
+}
@@ -0,0 +1,46 @@
+package solver;
+
+import java.util.List;
+
+public class SolveStats {
+    private final int numOfCars;
+    private final int nodesExpanded;
+    private final int depth;
+    private final long timeTaken;
+    private final long memoryUsed;
+    private final List<Board> solutionPath;
+
+    public SolveStats(int numOfCars, int nodesExpanded, List<Board> solutionPath, long timeTaken, long memoryUsed) {
+        this.numOfCars = numOfCars;
+        this.nodesExpanded = nodesExpanded;
+        this.depth = solutionPath == null ? -1 : solutionPath.size() - 1;
+        this.timeTaken = timeTaken;
+        this.memoryUsed = memoryUsed;
+        this.solutionPath = solutionPath;
+    }
+
+    public int getNumOfCars() {
+        return numOfCars;
+    }
+
+    public int getNodesExpanded() {
+        return nodesExpanded;
+    }
+
+    // -1 when the board has no solution.
+    public int getDepth() {
+        return depth;
+    }
+
+    public long getTimeTaken() {
+        return timeTaken;
+    }
+
+    public long getMemoryUsed() {
+        return memoryUsed;
+    }
+
+    public List<Board> getSolutionPath() {
+        return solutionPath;
+    }
+}
@@ -0,0 +1,134 @@
+package solver;
+
+import java.util.Arrays;
+
+// Open-addressing map from a packed state key to the key it was reached from
+// and its search depth. Zero marks an empty slot, so the key 0 is kept aside.
+public class StateTable {
+    public static final long NO_PARENT = -1L;
+    private static final int DEFAULT_CAPACITY = 1 << 10;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] keys;
+    private long[] parents;
+    private int[] depths;
+    private int mask;
+    private int size;
+    private int resizeThreshold;
+    private boolean containsZero;
+    private long zeroParent;
+    private int zeroDepth;
+
+    public StateTable() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public StateTable(int initialCapacity) {
+        int capacity = Integer.highestOneBit(Math.max((int) (initialCapacity / LOAD_FACTOR), 2) - 1) << 1;
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        parents = new long[capacity];
+        depths = new int[capacity];
+        mask = capacity - 1;
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    // Stores the entry only if the key is not present yet.
+    public boolean putIfAbsent(long key, long parent, int depth) {
+        if (key == 0L) {
+            if (containsZero) return false;
+            containsZero = true;
+            zeroParent = parent;
+            zeroDepth = depth;
+            size++;
+            return true;
+        }
+        int index = LongHashSet.slot(key, mask);
+        while (keys[index] != 0L) {
+            if (keys[index] == key) return false;
+            index = (index + 1) & mask;
+        }
+        keys[index] = key;
+        parents[index] = parent;
+        depths[index] = depth;
+        if (++size >= resizeThreshold) {
+            rehash(keys.length << 1);
+        }
+        return true;
+    }
+
+    // Stores the entry, replacing the parent and depth of an existing key.
+    public void put(long key, long parent, int depth) {
+        if (key == 0L && containsZero) {
+            zeroParent = parent;
+            zeroDepth = depth;
+            return;
+        }
+        int index = find(key);
+        if (index != -1) {
+            parents[index] = parent;
+            depths[index] = depth;
+            return;
+        }
+        putIfAbsent(key, parent, depth);
+    }
+
+    public boolean contains(long key) {
+        return find(key) != -1 || (key == 0L && containsZero);
+    }
+
+    // Returns -1 when the key is absent.
+    public int depthOf(long key) {
+        if (key == 0L) return containsZero ? zeroDepth : -1;
+        int index = find(key);
+        return index == -1 ? -1 : depths[index];
+    }
+
+    public long parentOf(long key) {
+        if (key == 0L) return containsZero ? zeroParent : NO_PARENT;
+        int index = find(key);
+        return index == -1 ? NO_PARENT : parents[index];
+    }
+
+    private int find(long key) {
+        if (key == 0L) return -1;
+        int index = LongHashSet.slot(key, mask);
+        long current;
+        while ((current = keys[index]) != 0L) {
+            if (current == key) return index;
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        long[] oldParents = parents;
+        int[] oldDepths = depths;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0L) {
+                int index = LongHashSet.slot(oldKeys[i], mask);
+                while (keys[index] != 0L) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = oldKeys[i];
+                parents[index] = oldParents[i];
+                depths[index] = oldDepths[i];
+            }
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        containsZero = false;
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,32 @@
+package solver;
+
+import java.util.Comparator;
+
+// A* ordered by f = g + weight * h. With a consistent heuristic the solution
+// found costs at most weight times the optimum, and larger weights expand
+// far fewer nodes. Ties go to the node closer to the goal.
+public class WeightedAStar extends AStar {
+    private final double weight;
+
+    public WeightedAStar(double weight) {
+        super(new IndexedPriorityQueue<>(priority(weight)));
+        this.weight = weight;
+    }
+
+    static Comparator<Node> priority(double weight) {
+        if (weight < 1.0) {
+            throw new IllegalArgumentException("Weight must be at least 1: " + weight);
+        }
+        return Comparator.<Node>comparingDouble(node -> node.getG() + weight * node.getH())
+                .thenComparingInt(Node::getH);
+    }
+
+    public double getWeight() {
+        return weight;
+    }
+
+    // Worst-case ratio between the cost of a returned solution and the optimum.
+    public double getSuboptimalityBound() {
+        return weight;
+    }
+}
@@ -0,0 +1,98 @@
+package heuristics;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import solver.Board;
+import solver.Puzzle;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Locks the chain-blocking values of the puzzles in puzzles.txt.
+ */
+public class ChainBlockingHeuristicTest
+    extends TestCase
+{
+    private static final int[] EXPECTED = {
+            2, 3, 3, 6, 2, 5, 5, 5, 10, 5, 5, 5, 5, 3, 6, 8, 3, 8, 6, 4, 5, 6, 6, 5, 9, 6, 9, 8, 2
+    };
+
+    private List<Board> boards;
+
+    public ChainBlockingHeuristicTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( ChainBlockingHeuristicTest.class );
+    }
+
+    protected void setUp()
+    {
+        boards = new Puzzle( "puzzles.txt" ).getAllPuzzleBoards();
+    }
+
+    public void testValuesOnPuzzles()
+    {
+        assertEquals( EXPECTED.length, boards.size() );
+        for ( int i = 0; i < boards.size(); i++ )
+        {
+            assertEquals( "puzzle " + i, EXPECTED[i], new ChainBlockingHeuristic().calculateH( boards.get( i ) ) );
+        }
+    }
+
+    public void testSharedInstanceDoesNotAccumulate()
+    {
+        Heuristic heuristic = new ChainBlockingHeuristic();
+        for ( int round = 0; round < 3; round++ )
+        {
+            for ( int i = 0; i < boards.size(); i++ )
+            {
+                assertEquals( "puzzle " + i + ", round " + round, EXPECTED[i], heuristic.calculateH( boards.get( i ) ) );
+            }
+        }
+    }
+
+    public void testSharedAcrossThreads() throws Exception
+    {
+        final Heuristic heuristic = new ChainBlockingHeuristic();
+        ExecutorService executor = Executors.newFixedThreadPool( 4 );
+        try
+        {
+            List<Future<int[]>> results = new ArrayList<>();
+            for ( int task = 0; task < 8; task++ )
+            {
+                results.add( executor.submit( () -> {
+                    int[] values = new int[boards.size()];
+                    for ( int round = 0; round < 100; round++ )
+                    {
+                        for ( int i = 0; i < boards.size(); i++ )
+                        {
+                            values[i] = heuristic.calculateH( boards.get( i ) );
+                        }
+                    }
+                    return values;
+                } ) );
+            }
+            for ( Future<int[]> result : results )
+            {
+                int[] values = result.get();
+                for ( int i = 0; i < values.length; i++ )
+                {
+                    assertEquals( "puzzle " + i, EXPECTED[i], values[i] );
+                }
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package heuristics;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import solver.Board;
+import solver.Puzzle;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Checks that reusing a parent's value never changes what a heuristic reports.
+ */
+public class IncrementalHeuristicTest
+    extends TestCase
+{
+    private static final int STEPS = 200;
+
+    private List<Board> boards;
+
+    public IncrementalHeuristicTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( IncrementalHeuristicTest.class );
+    }
+
+    protected void setUp()
+    {
+        boards = new Puzzle( "puzzles.txt" ).getAllPuzzleBoards();
+    }
+
+    public void testChainBlockingMatchesFullEvaluation()
+    {
+        checkRandomWalks( new ChainBlockingHeuristic() );
+    }
+
+    public void testMovementPotentialMatchesFullEvaluation()
+    {
+        checkRandomWalks( new MovementPotentialHeuristic() );
+    }
+
+    // Walks randomly from every puzzle and compares the incremental value of
+    // each child with a full evaluation.
+    private void checkRandomWalks( IncrementalHeuristic heuristic )
+    {
+        Random random = new Random( 42 );
+        for ( int i = 0; i < boards.size(); i++ )
+        {
+            Board board = boards.get( i );
+            long[] dependencies = new long[2];
+            int h = heuristic.calculateH( board, dependencies );
+            assertEquals( "puzzle " + i, heuristic.calculateH( board ), h );
+
+            int[] moves = new int[board.getLayout().getMaxMoves()];
+            for ( int step = 0; step < STEPS; step++ )
+            {
+                int count = board.generateMoves( moves );
+                for ( int m = 0; m < count; m++ )
+                {
+                    Board child = board.applyMove( moves[m] );
+                    int childH = heuristic.calculateH( child, moves[m], h, dependencies, new long[2] );
+                    assertEquals( "puzzle " + i + ", step " + step, heuristic.calculateH( child ), childH );
+                }
+                int move = moves[random.nextInt( count )];
+                Board next = board.applyMove( move );
+                long[] nextDependencies = new long[2];
+                h = heuristic.calculateH( next, move, h, dependencies, nextDependencies );
+                board = next;
+                dependencies = nextDependencies;
+            }
+        }
+    }
+}
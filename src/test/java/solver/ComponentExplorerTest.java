@@ -0,0 +1,79 @@
+package solver;
+
+import heuristics.BlockingHeuristic;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Checks component distances against search and the component file layout.
+ */
+public class ComponentExplorerTest
+    extends TestCase
+{
+    private static final int MAGIC = 0x43475231;
+    private static final int[] PUZZLES = { 0, 4, 13, 28 };
+
+    private Path file;
+    private List<Board> puzzles;
+
+    public ComponentExplorerTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( ComponentExplorerTest.class );
+    }
+
+    protected void setUp() throws IOException
+    {
+        file = Files.createTempFile( "component", ".bin" );
+        puzzles = new Puzzle( "puzzles.txt" ).getAllPuzzleBoards();
+    }
+
+    protected void tearDown() throws IOException
+    {
+        Files.deleteIfExists( file );
+    }
+
+    public void testStartDistanceMatchesSearch()
+    {
+        for ( int i : PUZZLES )
+        {
+            Board board = puzzles.get( i );
+            ComponentExplorer.Component component = ComponentExplorer.explore( board );
+            List<Board> path = new AStar().solve( board, new BlockingHeuristic() );
+            assertEquals( "puzzle " + i, path.size() - 1, component.getStartDistance() );
+        }
+    }
+
+    public void testFileHeaderAndCounts() throws IOException
+    {
+        Board board = puzzles.get( PUZZLES[0] );
+        ComponentExplorer.Component component = ComponentExplorer.explore( board, file );
+
+        ByteBuffer buffer = ByteBuffer.wrap( Files.readAllBytes( file ) );
+        byte[] expected = MappedFiles.header( MAGIC, board.getLayout() );
+        byte[] header = new byte[expected.length];
+        buffer.get( header );
+        assertTrue( Arrays.equals( expected, header ) );
+        assertEquals( component.size(), buffer.getLong() );
+        assertEquals( component.getEdgeCount(), buffer.getLong() );
+
+        // Key and neighbour count per state, neighbour ids, one distance byte per state.
+        long states = component.size();
+        long length = expected.length + 2L * Long.BYTES
+                + states * ( Long.BYTES + 1 ) + (long) component.getEdgeCount() * Integer.BYTES + states;
+        assertEquals( length, Files.size( file ) );
+        assertEquals( board.getStateKey(), buffer.getLong() );
+    }
+}
@@ -0,0 +1,67 @@
+package solver;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Checks that a distance database serves every board of its layout class.
+ */
+public class DistanceDatabaseTest
+    extends TestCase
+{
+    private Path directory;
+
+    public DistanceDatabaseTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( DistanceDatabaseTest.class );
+    }
+
+    protected void setUp() throws IOException
+    {
+        directory = Files.createTempDirectory( "distances" );
+    }
+
+    protected void tearDown()
+    {
+        for ( File file : directory.toFile().listFiles() )
+        {
+            file.delete();
+        }
+        directory.toFile().delete();
+    }
+
+    public void testRenumberedPuzzleSharesTheDatabase()
+    {
+        Board board = new Puzzle( "puzzles.txt" ).getPuzzleById( 0 );
+        // Same vehicles in the same order, with other ids.
+        Map<Integer, Vehicle> renumbered = new HashMap<>();
+        for ( Vehicle vehicle : board.getVehicles().values() )
+        {
+            int id = vehicle.getId() == Board.TARGET_VEHICLE_ID ? vehicle.getId() : vehicle.getId() + 10;
+            renumbered.put( id, new Vehicle( id, vehicle.getStartX(), vehicle.getStartY(),
+                    vehicle.getLength(), vehicle.getIsHorizontal() ) );
+        }
+        Board copy = new Board( renumbered, board.getBoardSize() );
+        assertFalse( board.getLayout().equals( copy.getLayout() ) );
+
+        DistanceDatabase database = DistanceDatabase.load( board.getLayout(), directory );
+        assertSame( database, DistanceDatabase.load( copy.getLayout(), directory ) );
+
+        int distance = database.distance( board );
+        assertEquals( distance, database.distance( copy ) );
+        assertEquals( distance + 1, database.solve( copy ).size() );
+    }
+}
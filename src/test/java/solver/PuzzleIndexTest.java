@@ -0,0 +1,107 @@
+package solver;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Checks canonical keys and the persistent puzzle index.
+ */
+public class PuzzleIndexTest
+    extends TestCase
+{
+    private Path directory;
+    private List<Board> puzzles;
+
+    public PuzzleIndexTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( PuzzleIndexTest.class );
+    }
+
+    protected void setUp() throws IOException
+    {
+        directory = Files.createTempDirectory( "puzzle-index" );
+        puzzles = new Puzzle( "puzzles.txt" ).getAllPuzzleBoards();
+    }
+
+    protected void tearDown()
+    {
+        for ( File file : directory.toFile().listFiles() )
+        {
+            file.delete();
+        }
+        directory.toFile().delete();
+    }
+
+    public void testDuplicatesAcrossRuns() throws IOException
+    {
+        try ( PuzzleIndex index = PuzzleIndex.open( directory ) )
+        {
+            for ( Board board : puzzles )
+            {
+                assertTrue( index.add( CanonicalKey.of( board ) ) );
+            }
+            assertFalse( index.add( CanonicalKey.of( puzzles.get( 0 ).clone() ) ) );
+        }
+        try ( PuzzleIndex index = PuzzleIndex.open( directory ) )
+        {
+            assertEquals( puzzles.size(), index.size() );
+            for ( Board board : puzzles )
+            {
+                assertFalse( index.add( CanonicalKey.of( board ) ) );
+            }
+        }
+    }
+
+    public void testGrowsAndRebuildsTheBloomFilter() throws IOException
+    {
+        ComponentExplorer.Component component = ComponentExplorer.explore( puzzles.get( 0 ) );
+        int count = Math.min( component.size(), 5000 );
+        try ( PuzzleIndex index = PuzzleIndex.open( directory, 1000 ) )
+        {
+            for ( int id = 0; id < count; id++ )
+            {
+                assertTrue( index.add( key( component, id ) ) );
+            }
+        }
+        Files.delete( directory.resolve( "bloom.bin" ) );
+        try ( PuzzleIndex index = PuzzleIndex.open( directory ) )
+        {
+            assertEquals( count, index.size() );
+            for ( int id = 0; id < count; id++ )
+            {
+                assertTrue( index.contains( key( component, id ) ) );
+            }
+        }
+    }
+
+    public void testComponentKeyIgnoresTheState()
+    {
+        Board board = puzzles.get( 0 );
+        ComponentExplorer.Component component = ComponentExplorer.explore( board );
+        Board other = board.getLayout().toBoard( component.getState( component.size() - 1 ) );
+        assertFalse( CanonicalKey.of( board ).equals( CanonicalKey.of( other ) ) );
+        assertEquals( CanonicalKey.ofComponent( board, Integer.MAX_VALUE ), CanonicalKey.ofComponent( other, Integer.MAX_VALUE ) );
+
+        Board hardest = CanonicalKey.representative( other, Integer.MAX_VALUE );
+        assertEquals( component.getMaxDistance(), component.distance( hardest.getStateKey() ) );
+        // Too large components fall back to the board itself.
+        assertEquals( CanonicalKey.of( board ), CanonicalKey.ofComponent( board, 1 ) );
+    }
+
+    private static CanonicalKey key( ComponentExplorer.Component component, int id )
+    {
+        return CanonicalKey.of( component.getLayout().toBoard( component.getState( id ) ) );
+    }
+}
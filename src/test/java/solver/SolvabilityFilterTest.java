@@ -0,0 +1,94 @@
+package solver;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Checks the verdicts of the solvability pre-filter.
+ */
+public class SolvabilityFilterTest
+    extends TestCase
+{
+    private SolvabilityFilter filter;
+
+    public SolvabilityFilterTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( SolvabilityFilterTest.class );
+    }
+
+    protected void setUp()
+    {
+        filter = new SolvabilityFilter();
+    }
+
+    public void testPuzzlesNeedASearch()
+    {
+        for ( Board board : new Puzzle( "puzzles.txt" ).getAllPuzzleBoards() )
+        {
+            assertEquals( SolvabilityFilter.Verdict.UNKNOWN, filter.classify( board ) );
+        }
+        assertEquals( 0, filter.getAvoidedSolves() );
+    }
+
+    public void testSolvedAndClearPath()
+    {
+        assertEquals( SolvabilityFilter.Verdict.SOLVED, filter.classify( board( car( 1, 4, 2, 2, true ) ) ) );
+        assertEquals( SolvabilityFilter.Verdict.TRIVIAL,
+                filter.classify( board( car( 1, 0, 2, 2, true ), car( 2, 3, 3, 3, false ) ) ) );
+    }
+
+    public void testHorizontalAheadInExitRow()
+    {
+        assertEquals( SolvabilityFilter.Verdict.UNSOLVABLE,
+                filter.classify( board( car( 1, 0, 2, 2, true ), car( 2, 4, 2, 2, true ) ) ) );
+    }
+
+    public void testColumnThatCannotClearTheExitRow()
+    {
+        assertEquals( SolvabilityFilter.Verdict.UNSOLVABLE,
+                filter.classify( board( car( 1, 0, 2, 2, true ), car( 2, 4, 0, 3, false ), car( 3, 4, 3, 3, false ) ) ) );
+        // The same column shape is answered from memory.
+        assertEquals( SolvabilityFilter.Verdict.UNSOLVABLE,
+                filter.classify( board( car( 1, 1, 2, 2, true ), car( 2, 5, 0, 3, false ), car( 3, 5, 3, 3, false ) ) ) );
+        assertTrue( filter.getMemoHits() > 0 );
+        assertEquals( 2, filter.getDeadlocks() );
+    }
+
+    public void testVerticalTrappedBetweenFullRows()
+    {
+        Board board = board( car( 1, 0, 2, 2, true ), car( 2, 3, 1, 2, false ),
+                car( 3, 0, 0, 3, true ), car( 4, 3, 0, 3, true ),
+                car( 5, 0, 3, 3, true ), car( 6, 3, 3, 3, true ) );
+        assertEquals( SolvabilityFilter.Verdict.UNSOLVABLE, filter.classify( board ) );
+    }
+
+    public void testSolvableBoardIsNotRejected()
+    {
+        Board board = board( car( 1, 0, 2, 2, true ), car( 2, 3, 1, 2, false ), car( 3, 0, 0, 3, true ) );
+        assertEquals( SolvabilityFilter.Verdict.UNKNOWN, filter.classify( board ) );
+    }
+
+    private static Vehicle car( int id, int x, int y, int length, boolean horizontal )
+    {
+        return new Vehicle( id, x, y, length, horizontal );
+    }
+
+    private static Board board( Vehicle... vehicles )
+    {
+        Map<Integer, Vehicle> map = new HashMap<>();
+        for ( Vehicle vehicle : vehicles )
+        {
+            map.put( vehicle.getId(), vehicle );
+        }
+        return new Board( map, 6 );
+    }
+}